@@ -30,6 +30,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/uploads/**").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/auctions", "/api/auctions/*", "/api/users/{id}").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/auctions/*/stream").permitAll()
                         .requestMatchers("/api/dev/**").permitAll() // dev helper - restrict in prod
                         .requestMatchers("/api/uploads/*").permitAll()
                         .anyRequest().authenticated()
@@ -1,30 +1,49 @@
 package com.huyin.inner_auction.controller;
 
+import com.huyin.inner_auction.dto.AuctionChangesDto;
 import com.huyin.inner_auction.dto.AuctionDto;
+import com.huyin.inner_auction.dto.AuctionSummaryDto;
 import com.huyin.inner_auction.dto.CreateAuctionRequest;
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.entity.Auction;
 import com.huyin.inner_auction.entity.Bid;
 import com.huyin.inner_auction.service.AuctionService;
+import com.huyin.inner_auction.service.impl.AuctionChangeLog;
+import com.huyin.inner_auction.service.impl.AuctionSearchEngine;
+import com.huyin.inner_auction.service.impl.AuctionStreamHub;
+import com.huyin.inner_auction.service.impl.AuctionVersions;
 import lombok.RequiredArgsConstructor;
 //import org.apache.tomcat.util.net.openssl.ciphers.Authentication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Các API đọc cho Auctions:
- * - GET /api/auctions?page=&size=&status=&q= : danh sách có phân trang / lọc
- * - GET /api/auctions/{id} : chi tiết auction
- * - GET /api/auctions/{id}/bids?page=&size= : lịch sử bids (theo thời gian)
+ * - GET /api/auctions?cursor=&limit=&status=&q= : danh sách theo cursor (mới nhất trước, không count);
+ *   truyền page= (page/size) để dùng phân trang kiểu cũ có total
+ * - GET /api/auctions/search?q=&status=&page=&size= : search box (index trong RAM, có facets)
+ * - POST /api/auctions/summaries : giá / trạng thái của nhiều auction trong một request (grid polling)
+ * - GET /api/auctions/{id} : chi tiết auction (ETag / If-None-Match -> 304)
+ * - GET /api/auctions/{id}/bids?cursor=&limit= : lịch sử bids (mới nhất trước, có ETag); page=&size= kiểu cũ vẫn dùng được
+ * - GET /api/auctions/changes?since=&waitMs= : long-poll các auction đổi giá / trạng thái sau since
+ * - GET /api/auctions/{id}/stream : giá live (Server-Sent Events), hỗ trợ Last-Event-ID
  *
  * Vietnamese: controller cung cấp API public để frontend hiển thị danh sách và chi tiết auction.
  */
@@ -33,7 +52,13 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class AuctionController {
 
+    private static final int MAX_SUMMARY_IDS = 200;
+
     private final AuctionService auctionService;
+    private final AuctionStreamHub auctionStreamHub;
+    private final AuctionSearchEngine auctionSearchEngine;
+    private final AuctionVersions auctionVersions;
+    private final AuctionChangeLog auctionChangeLog;
 
     @PostMapping
     public ResponseEntity<?> createAuction(@Validated @RequestBody CreateAuctionRequest req, Authentication auth) {
@@ -57,50 +82,156 @@ public class AuctionController {
 
     @GetMapping
     public ResponseEntity<?> listAuctions(
-            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "page", required = false) Integer page,
             @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
             @RequestParam(value = "status", required = false) String status,
             @RequestParam(value = "q", required = false) String q
     ) {
-        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size));
-
         String qParam = (q == null) ? null : q.trim();
         if (qParam != null && qParam.isEmpty()) qParam = null;
 
         // prepare LIKE pattern in Java (or null)
         String qLike = (qParam == null) ? null : "%" + qParam + "%";
 
-        Page<AuctionDto> result = auctionService.listAuctions(status, qLike, pageable);
-        return ResponseEntity.ok(result);
+        if (page != null) {
+            // legacy offset paging (with total count)
+            Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size));
+            Page<AuctionDto> result = auctionService.listAuctions(status, qLike, pageable);
+            return ResponseEntity.ok(result);
+        }
+        try {
+            CursorPageDto<AuctionDto> result = auctionService.listAuctionsByCursor(status, qLike, cursor, limit);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_cursor"));
+        }
     }
 
+    /**
+     * Prefix search over title/description, ranked by relevance, then ending soonest, then price.
+     * Facets (status, price range) count every match, not just the returned page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAuctions(
+            @RequestParam(value = "q", defaultValue = "") String q,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        if (q.isBlank()) return ResponseEntity.badRequest().body(Map.of("error", "q_required"));
+        return ResponseEntity.ok(auctionSearchEngine.search(q, status, Math.max(0, page), Math.min(Math.max(1, size), 100)));
+    }
+
+    /**
+     * Batch summaries for grid polling: body is a JSON array of auction ids (at most MAX_SUMMARY_IDS).
+     * Unknown ids are left out of the response.
+     */
+    @PostMapping("/summaries")
+    public ResponseEntity<?> getSummaries(@RequestBody List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) return ResponseEntity.badRequest().body(Map.of("error", "ids_required"));
+        if (ids.size() > MAX_SUMMARY_IDS) return ResponseEntity.badRequest().body(Map.of("error", "too_many_ids"));
+        List<AuctionSummaryDto> summaries = auctionService.getAuctionSummaries(ids);
+        return ResponseEntity.ok(summaries);
+    }
+
+    /**
+     * Long-poll feed for clients without SSE: returns the auctions whose price or status changed after
+     * {@code since} (start with 0, then pass back {@code cursor}); waits up to {@code waitMs} when there is none.
+     * Only changes committed on the node answering the request are reported.
+     */
+    @GetMapping("/changes")
+    public DeferredResult<AuctionChangesDto> getChanges(
+            @RequestParam(value = "since", defaultValue = "0") String since,
+            @RequestParam(value = "waitMs", defaultValue = "25000") long waitMs
+    ) {
+        return auctionChangeLog.poll(since, waitMs);
+    }
+
+    /**
+     * Conditional GET: the ETag is the auction's version column (AuctionVersions), so a matching
+     * If-None-Match is answered 304 after a primary-key lookup of that one column.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getAuction(@PathVariable String id) {
+    public ResponseEntity<?> getAuction(@PathVariable String id,
+                                        @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
             UUID auctionId = UUID.fromString(id);
-            Auction a = auctionService.getAuction(auctionId);
+            Optional<Long> version = auctionVersions.current(auctionId);
+            if (version.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "auction_not_found"));
+            String etag = AuctionVersions.etag(version.get(), "a");
+            if (AuctionVersions.matches(ifNoneMatch, etag)) return notModified(etag);
+            // read model (DTO), never the entity: serialization cannot touch lazy associations;
+            // at least the tagged version, so the tag never covers an older body
+            AuctionDto a = auctionService.getAuctionById(auctionId, version.get());
             if (a == null) return ResponseEntity.status(404).body(Map.of("error", "auction_not_found"));
-            return ResponseEntity.ok(a);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(a);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("error", "invalid_uuid"));
         }
     }
 
-
-
     @GetMapping("/{id}/bids")
     public ResponseEntity<?> getAuctionBids(
             @PathVariable String id,
-            @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "50") int size
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", defaultValue = "50") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch
     ) {
+        UUID auctionId;
         try {
-            UUID auctionId = UUID.fromString(id);
-            Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size));
-            Page<Bid> bids = auctionService.listBidsForAuction(auctionId, pageable);
-            return ResponseEntity.ok(bids);
+            auctionId = UUID.fromString(id);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("error", "invalid_uuid"));
         }
+        // one tag per page shape; any new bid bumps auctions.version, hence every page's tag
+        Optional<Long> version = auctionVersions.current(auctionId);
+        if (version.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "auction_not_found"));
+        String etag = AuctionVersions.etag(version.get(),
+                "b" + Integer.toHexString(Objects.hash(page, size, cursor, limit)));
+        if (AuctionVersions.matches(ifNoneMatch, etag)) return notModified(etag);
+        if (page != null) {
+            Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size));
+            Page<Bid> bids = auctionService.listBidsForAuction(auctionId, pageable, version.get());
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(bids);
+        }
+        try {
+            CursorPageDto<Bid> bids = auctionService.listBidsByCursor(auctionId, cursor, limit, version.get());
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(bids);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_cursor"));
+        }
+    }
+
+    /**
+     * Live price feed: one "price" event per accepted bid (price, leader, end time, bid count).
+     * Reconnecting clients send Last-Event-ID and get the events they missed.
+     */
+    @GetMapping("/{id}/stream")
+    public ResponseEntity<SseEmitter> streamAuction(
+            @PathVariable String id,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        UUID auctionId;
+        try {
+            auctionId = UUID.fromString(id);
+        } catch (IllegalArgumentException ex) {
+            // body type must stay SseEmitter for the streaming handler, so errors carry no JSON body
+            return ResponseEntity.badRequest().build();
+        }
+        // ids from another node / an unknown format start from the current snapshot (see AuctionStreamHub)
+        SseEmitter emitter = auctionStreamHub.subscribe(auctionId, lastEventId);
+        if (emitter == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    private static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package com.huyin.inner_auction.controller;
 
+import com.huyin.inner_auction.dto.ProxyBidResultDto;
 import com.huyin.inner_auction.entity.Bid;
 import com.huyin.inner_auction.service.BidService;
+import com.huyin.inner_auction.service.impl.BidIdempotencyCache;
 import jakarta.validation.constraints.DecimalMin;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -19,6 +22,7 @@ import java.util.UUID;
 public class BidController {
 
     private final BidService bidService;
+    private final BidIdempotencyCache idempotencyCache;
 
     @Data
     static class PlaceBidRequest {
@@ -26,15 +30,54 @@ public class BidController {
         private BigDecimal amount;
     }
 
+    @Data
+    static class PlaceProxyBidRequest {
+        @DecimalMin(value = "0.01", message = "maxAmount must be >= 0.01")
+        private BigDecimal maxAmount;
+    }
+
     @PostMapping("/{auctionId}/bids")
     public ResponseEntity<?> placeBid(Authentication authentication,
                                       @PathVariable String auctionId,
+                                      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                       @RequestBody PlaceBidRequest req) {
         if (authentication == null) return ResponseEntity.status(401).body(Map.of("error", "unauthorized"));
         UUID userId = UUID.fromString(authentication.getPrincipal().toString());
         UUID aId = UUID.fromString(auctionId);
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 100)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key must be 1-100 characters"));
+        }
         try {
-            Bid created = bidService.placeBid(userId, aId, req.getAmount());
+            if (idempotencyKey != null) {
+                // Replayed key: answer from the stored bid without going through the bid engine again.
+                Optional<Bid> replay = idempotencyCache.claim(userId, idempotencyKey).getReplay();
+                if (replay.isPresent()) {
+                    if (!aId.equals(replay.get().getAuctionId())) {
+                        return ResponseEntity.status(422).body(Map.of("error", "Idempotency-Key already used for another auction"));
+                    }
+                    return ResponseEntity.ok(replay.get());
+                }
+            }
+            Bid created;
+            try {
+                created = bidService.placeBid(userId, aId, req.getAmount(), idempotencyKey);
+            } catch (BidIdempotencyCache.DuplicateRequestException ex) {
+                // another node committed this key first: replay its bid
+                idempotencyCache.abandon(userId, idempotencyKey);
+                Optional<Bid> replay = idempotencyCache.claim(userId, idempotencyKey).getReplay();
+                if (replay.isEmpty()) {
+                    idempotencyCache.abandon(userId, idempotencyKey);
+                    throw ex;
+                }
+                if (!aId.equals(replay.get().getAuctionId())) {
+                    return ResponseEntity.status(422).body(Map.of("error", "Idempotency-Key already used for another auction"));
+                }
+                return ResponseEntity.ok(replay.get());
+            } catch (RuntimeException ex) {
+                if (idempotencyKey != null) idempotencyCache.abandon(userId, idempotencyKey);
+                throw ex;
+            }
+            if (idempotencyKey != null) idempotencyCache.complete(userId, idempotencyKey, created);
             return ResponseEntity.ok(created);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
@@ -44,4 +87,26 @@ public class BidController {
             return ResponseEntity.status(500).body(Map.of("error", "internal_error", "detail", ex.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Register or raise a proxy (max) bid; the server bids on the user's behalf up to maxAmount.
+     */
+    @PostMapping("/{auctionId}/proxy-bids")
+    public ResponseEntity<?> placeProxyBid(Authentication authentication,
+                                           @PathVariable String auctionId,
+                                           @RequestBody PlaceProxyBidRequest req) {
+        if (authentication == null) return ResponseEntity.status(401).body(Map.of("error", "unauthorized"));
+        UUID userId = UUID.fromString(authentication.getPrincipal().toString());
+        UUID aId = UUID.fromString(auctionId);
+        try {
+            ProxyBidResultDto result = bidService.placeProxyBid(userId, aId, req.getMaxAmount());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(409).body(Map.of("error", ex.getMessage()));
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).body(Map.of("error", "internal_error", "detail", ex.getMessage()));
+        }
+    }
+}
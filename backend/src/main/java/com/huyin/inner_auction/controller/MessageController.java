@@ -1,5 +1,6 @@
 package com.huyin.inner_auction.controller;
 
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.entity.Message;
 import com.huyin.inner_auction.service.MessageService;
 import jakarta.validation.constraints.NotBlank;
@@ -20,8 +21,9 @@ import java.util.UUID;
  * - POST /api/messages            : gửi tin nhắn (auth required)
  * - GET  /api/auctions/{id}/messages : lấy message của auction
  * - GET  /api/sales/{id}/messages    : lấy message của sale
- * - GET  /api/messages/conversation?with={userId}  : lấy conversation giữa current user và with
- * - GET  /api/messages/me            : lấy inbox/outbox cho user
+ * - GET  /api/messages/conversation?with={userId}&cursor=&limit= : conversation giữa current user và with
+ * - GET  /api/messages/me?cursor=&limit=   : inbox/outbox cho user
+ *   (hai endpoint này trả {items, nextCursor}, mới nhất trước)
  */
 @RestController
 @RequestMapping("/api")
@@ -75,19 +77,32 @@ public class MessageController {
     }
 
     @GetMapping("/messages/conversation")
-    public ResponseEntity<?> getConversation(Authentication authentication, @RequestParam("with") String withUserId) {
+    public ResponseEntity<?> getConversation(Authentication authentication,
+                                             @RequestParam("with") String withUserId,
+                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                             @RequestParam(value = "limit", required = false) Integer limit) {
         if (authentication == null) return ResponseEntity.status(401).body(Map.of("error", "unauthorized"));
         UUID me = UUID.fromString(authentication.getPrincipal().toString());
-        UUID other = UUID.fromString(withUserId);
-        List<Message> conv = messageService.getConversation(me, other);
-        return ResponseEntity.ok(conv);
+        try {
+            UUID other = UUID.fromString(withUserId);
+            CursorPageDto<Message> conv = messageService.getConversation(me, other, cursor, limit);
+            return ResponseEntity.ok(conv);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
     }
 
     @GetMapping("/messages/me")
-    public ResponseEntity<?> myMessages(Authentication authentication) {
+    public ResponseEntity<?> myMessages(Authentication authentication,
+                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "limit", required = false) Integer limit) {
         if (authentication == null) return ResponseEntity.status(401).body(Map.of("error", "unauthorized"));
         UUID me = UUID.fromString(authentication.getPrincipal().toString());
-        List<Message> msgs = messageService.getUserMessages(me);
-        return ResponseEntity.ok(msgs);
+        try {
+            CursorPageDto<Message> msgs = messageService.getUserMessages(me, cursor, limit);
+            return ResponseEntity.ok(msgs);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_cursor"));
+        }
     }
 }
\ No newline at end of file
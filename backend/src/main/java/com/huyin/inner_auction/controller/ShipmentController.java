@@ -1,13 +1,11 @@
 package com.huyin.inner_auction.controller;
 
-import com.huyin.inner_auction.entity.Shipment;
-import com.huyin.inner_auction.repository.ShipmentRepository;
+import com.huyin.inner_auction.service.SaleService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.OffsetDateTime;
 import java.util.Map;
 import java.util.UUID;
 
@@ -19,7 +17,7 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class ShipmentController {
 
-    private final ShipmentRepository shipmentRepository;
+    private final SaleService saleService;
 
     @PostMapping("/{saleId}/shipment")
     public ResponseEntity<?> createShipment(Authentication authentication, @PathVariable String saleId, @RequestBody Map<String, String> body) {
@@ -31,14 +29,7 @@ public class ShipmentController {
         String carrier = body.get("carrier");
         String trackingNumber = body.get("trackingNumber");
         String labelUrl = body.get("labelUrl");
-        Shipment sh = Shipment.builder()
-                .saleId(sId)
-                .carrier(carrier)
-                .trackingNumber(trackingNumber)
-                .labelUrl(labelUrl)
-                .shippedAt(OffsetDateTime.now())
-                .build();
-        shipmentRepository.save(sh);
+        saleService.recordShipment(sId, carrier, trackingNumber, labelUrl); // also schedules the auto-release
         return ResponseEntity.ok(Map.of("status", "ok"));
     }
 }
\ No newline at end of file
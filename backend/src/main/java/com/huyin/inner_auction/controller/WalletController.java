@@ -1,5 +1,6 @@
 package com.huyin.inner_auction.controller;
 
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.dto.WalletDto;
 import com.huyin.inner_auction.entity.Transaction;
 import com.huyin.inner_auction.service.WalletService;
@@ -14,7 +15,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -95,10 +95,16 @@ public class WalletController {
     }
 
     @GetMapping("/transactions")
-    public ResponseEntity<?> transactions(Authentication authentication) {
+    public ResponseEntity<?> transactions(Authentication authentication,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
         if (authentication == null) return ResponseEntity.status(401).body(Map.of("error", "unauthorized"));
         UUID userId = UUID.fromString(authentication.getPrincipal().toString());
-        List<Transaction> txs = walletService.listTransactions(userId);
-        return ResponseEntity.ok(txs);
+        try {
+            CursorPageDto<Transaction> txs = walletService.listTransactions(userId, cursor, limit);
+            return ResponseEntity.ok(txs);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_cursor"));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.huyin.inner_auction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response of GET /api/auctions/changes?since=: latest state of every auction that changed after {@code since}.
+ * Poll again with {@code since = cursor}; the cursor is opaque and tied to the node that issued it.
+ * {@code reset} = that node's log does not cover {@code since} (another replica, server restart or client too far
+ * behind): reload the auctions you show, then continue from {@code cursor}. Only changes committed on the
+ * answering node are listed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuctionChangesDto {
+    private String cursor;
+    private boolean reset;
+    private List<Change> changes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private UUID auctionId;
+        private long seq;               // order of the change on the answering node
+        private BigDecimal currentPrice; // null = unchanged since `since`
+        private String status;           // null = unchanged since `since`
+    }
+}
@@ -0,0 +1,41 @@
+package com.huyin.inner_auction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Response of GET /api/auctions/search: one page of ranked hits plus facet counts over all matches.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuctionSearchResultDto {
+    private List<Hit> items;
+    private long total;
+    private int page;
+    private int size;
+    private Map<String, Long> statusFacet;  // status -> number of matches
+    private Map<String, Long> priceFacet;   // price range label -> number of matches (current price)
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private UUID id;
+        private String title;
+        private String status;
+        private BigDecimal currentPrice;
+        private OffsetDateTime endAt;
+        private double score;
+    }
+}
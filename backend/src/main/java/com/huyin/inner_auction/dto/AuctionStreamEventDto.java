@@ -0,0 +1,27 @@
+package com.huyin.inner_auction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Payload of one event on GET /api/auctions/{id}/stream (SSE); {@code sequence} is also the SSE event id.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuctionStreamEventDto {
+    private UUID auctionId;
+    private long sequence;
+    private BigDecimal currentPrice;
+    private UUID leaderUserId;      // null while there is no bid
+    private OffsetDateTime endAt;
+    private long bidCount;
+    private String status;
+}
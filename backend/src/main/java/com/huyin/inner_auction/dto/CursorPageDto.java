@@ -0,0 +1,21 @@
+package com.huyin.inner_auction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list (newest first). Pass {@code nextCursor} back as {@code ?cursor=}
+ * for the next page; it is null on the last page. No total count: computing it would cost a full scan.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items;
+    private String nextCursor;
+}
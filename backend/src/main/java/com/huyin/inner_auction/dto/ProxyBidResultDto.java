@@ -0,0 +1,23 @@
+package com.huyin.inner_auction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Result of registering a proxy (max) bid.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProxyBidResultDto {
+    private UUID auctionId;
+    private BigDecimal maxAmount;     // maximum registered by the user
+    private BigDecimal currentPrice;  // auction price after resolution
+    private boolean leading;          // false if another user's proxy was already higher
+}
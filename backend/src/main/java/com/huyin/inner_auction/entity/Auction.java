@@ -75,6 +75,11 @@ public class Auction {
 
     private Boolean settled;
 
+    // Optimistic lock version; bumped by every JPA update and by the conditional price UPDATEs in AuctionRepository.
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     // NOTE: removed legacy image_url field here — images live in auction_images table now.
 
     // Relationship: one Auction -> many AuctionImage
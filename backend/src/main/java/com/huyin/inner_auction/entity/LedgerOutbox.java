@@ -0,0 +1,60 @@
+package com.huyin.inner_auction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox cho bút toán sổ cái của hold — ghi cùng transaction với hold, sau đó
+ * LedgerOutboxDrainer bung mỗi dòng thành một EscrowEntry + một Transaction.
+ */
+@Entity
+@Table(name = "ledger_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerOutbox {
+    @Id
+    @Column(nullable = false)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "sale_id")
+    private UUID saleId;
+
+    @Column(name = "reference_id")
+    private UUID referenceId;
+
+    @Column(name = "related_entity", length = 50)
+    private String relatedEntity;
+
+    @Column(name = "escrow_type", nullable = false, length = 30)
+    private String escrowType; // HOLD | REFUND
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tx_type", nullable = false, length = 30)
+    private TransactionType txType;
+
+    @Column(length = 20)
+    private String direction; // IN | OUT
+
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal amount;
+
+    @Column(columnDefinition = "text")
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = UUID.randomUUID();
+        if (createdAt == null) createdAt = OffsetDateTime.now();
+    }
+}
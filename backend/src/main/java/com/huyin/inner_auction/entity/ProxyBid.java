@@ -0,0 +1,42 @@
+package com.huyin.inner_auction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Giá tối đa (proxy bid) của một user trên một auction; engine tự trả giá thay user tới max_amount.
+ */
+@Entity
+@Table(name = "proxy_bids")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProxyBid {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @Column(name = "auction_id", nullable = false)
+    private UUID auctionId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "max_amount", nullable = false, precision = 18, scale = 2)
+    private BigDecimal maxAmount;
+
+    @Column(name = "status", nullable = false)
+    private String status; // ACTIVE | INACTIVE
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+}
@@ -53,6 +53,10 @@ public class Sale {
     @Column(name = "payout_id")
     private UUID payoutId;
 
+    // auto-release deadline: shipped_at + N days, or now() once delivery is confirmed; null until shipped
+    @Column(name = "release_due_at")
+    private OffsetDateTime releaseDueAt;
+
     @PrePersist
     public void prePersist() {
         if (id == null) id = UUID.randomUUID();
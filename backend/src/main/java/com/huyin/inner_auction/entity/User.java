@@ -46,6 +46,12 @@ public class User {
     @Column(name = "balance", precision = 18, scale = 2, nullable = false)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // Tổng các hold HELD của user. Chỉ được cập nhật bằng UPDATE có điều kiện trong UserRepository,
+    // không ghi qua entity để tránh ghi đè giá trị cũ khi save(user).
+    @Column(name = "held_total", precision = 18, scale = 2, insertable = false, updatable = false,
+            columnDefinition = "numeric(18,2) not null default 0")
+    private BigDecimal heldTotal = BigDecimal.ZERO;
+
     @Column(name = "created_at")
     private OffsetDateTime createdAt;
 
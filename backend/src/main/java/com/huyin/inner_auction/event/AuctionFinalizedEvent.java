@@ -0,0 +1,15 @@
+package com.huyin.inner_auction.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Published when an auction is settled (FINISHED); listeners use @TransactionalEventListener(AFTER_COMMIT).
+ */
+@Getter
+@AllArgsConstructor
+public class AuctionFinalizedEvent {
+    private final UUID auctionId;
+}
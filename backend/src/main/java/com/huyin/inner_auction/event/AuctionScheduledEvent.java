@@ -0,0 +1,17 @@
+package com.huyin.inner_auction.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Published when an auction's end time is set (created, or extended); listeners use @TransactionalEventListener(AFTER_COMMIT).
+ */
+@Getter
+@AllArgsConstructor
+public class AuctionScheduledEvent {
+    private final UUID auctionId;
+    private final Instant endAt;
+}
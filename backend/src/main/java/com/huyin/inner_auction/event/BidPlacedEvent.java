@@ -0,0 +1,22 @@
+package com.huyin.inner_auction.event;
+
+import com.huyin.inner_auction.entity.Bid;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published inside the bid transaction; listeners use @TransactionalEventListener(AFTER_COMMIT).
+ * {@code bids} holds every row written for one request (manual bid plus automatic proxy raises), oldest first.
+ */
+@Getter
+@AllArgsConstructor
+public class BidPlacedEvent {
+    private final UUID auctionId;
+    private final List<Bid> bids;
+    private final BigDecimal price;
+    private final UUID leaderUserId;
+}
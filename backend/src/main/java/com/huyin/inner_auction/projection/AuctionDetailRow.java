@@ -0,0 +1,31 @@
+package com.huyin.inner_auction.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Constructor projection for AuctionRepository.findDetailRows: auction columns plus one image per row
+ * (imageUrl null when the auction has no images). Plain values, so nothing can lazy-load during serialization.
+ */
+@Getter
+@AllArgsConstructor
+public class AuctionDetailRow {
+    private final UUID id;
+    private final UUID sellerId;
+    private final String title;
+    private final String description;
+    private final BigDecimal startingPrice;
+    private final BigDecimal currentPrice;
+    private final BigDecimal minIncrement;
+    private final BigDecimal reservePrice;
+    private final String status;
+    private final Instant startAt;
+    private final Instant endAt;
+    private final Instant createdAt;
+    private final Long version;
+    private final String imageUrl;
+}
@@ -0,0 +1,12 @@
+package com.huyin.inner_auction.projection;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Projection for AuctionRepository.findUnsettledEndTimes (id + end time only).
+ */
+public interface AuctionEndView {
+    UUID getId();
+    Instant getEndAt();
+}
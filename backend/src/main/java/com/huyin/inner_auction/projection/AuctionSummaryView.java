@@ -0,0 +1,16 @@
+package com.huyin.inner_auction.projection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Projection for AuctionRepository.findSummariesByIds (POST /api/auctions/summaries).
+ */
+public interface AuctionSummaryView {
+    UUID getId();
+    BigDecimal getCurrentPrice();
+    BigDecimal getMinIncrement();
+    Instant getEndAt();
+    String getStatus();
+}
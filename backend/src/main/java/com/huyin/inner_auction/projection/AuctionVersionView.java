@@ -0,0 +1,11 @@
+package com.huyin.inner_auction.projection;
+
+import java.util.UUID;
+
+/**
+ * Projection for AuctionRepository.findVersionsByIds (id + auctions.version only).
+ */
+public interface AuctionVersionView {
+    UUID getId();
+    Long getVersion();
+}
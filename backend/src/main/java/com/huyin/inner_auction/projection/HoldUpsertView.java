@@ -0,0 +1,13 @@
+package com.huyin.inner_auction.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Projection for HoldRepository.upsertHeld (INSERT ... ON CONFLICT ... RETURNING).
+ */
+public interface HoldUpsertView {
+    UUID getId();
+    BigDecimal getAmount();          // amount after the upsert
+    BigDecimal getPreviousAmount();  // null if the hold was just created
+}
@@ -2,21 +2,73 @@ package com.huyin.inner_auction.repository;
 
 import com.huyin.inner_auction.entity.Auction;
 import com.huyin.inner_auction.entity.AuctionImage;
+import com.huyin.inner_auction.projection.AuctionDetailRow;
+import com.huyin.inner_auction.projection.AuctionEndView;
+import com.huyin.inner_auction.projection.AuctionSummaryView;
+import com.huyin.inner_auction.projection.AuctionVersionView;
 import com.huyin.inner_auction.projection.AuctionWithImageView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface AuctionRepository extends JpaRepository<Auction, UUID> {
 
+    /**
+     * Text filter of the list endpoint; plain ILIKE on the columns so the pg_trgm GIN indexes
+     * (idx_auctions_title_trgm / idx_auctions_description_trgm) apply. Do not wrap the columns in lower().
+     */
+    String TEXT_MATCH = "(a.title ILIKE :q OR a.description ILIKE :q)";
+
+    String SEARCH_BY_TEXT = "SELECT a.* FROM auctions a WHERE " + TEXT_MATCH;
+
+    String SEARCH_BY_STATUS_AND_TEXT = "SELECT a.* FROM auctions a WHERE a.status = :status AND " + TEXT_MATCH;
+
+    /**
+     * @param q ILIKE pattern, e.g. "%lamp%"
+     */
+    @Query(value = SEARCH_BY_TEXT,
+            countQuery = "SELECT count(*) FROM auctions a WHERE " + TEXT_MATCH,
+            nativeQuery = true)
+    Page<Auction> findByText(@Param("q") String q, Pageable pageable);
+
+    @Query(value = SEARCH_BY_STATUS_AND_TEXT,
+            countQuery = "SELECT count(*) FROM auctions a WHERE a.status = :status AND " + TEXT_MATCH,
+            nativeQuery = true)
+    Page<Auction> findByStatusAndText(@Param("status") String status, @Param("q") String q, Pageable pageable);
+
+    /**
+     * Keyset page suffix (newest first): rows after the cursor (:createdAt, :id), :limit rows.
+     * Uses idx_auctions_created_id / idx_auctions_status_created_id (V14) instead of OFFSET + count(*).
+     */
+    String AFTER_CURSOR = " (a.created_at, a.id) < (:createdAt, :id) ORDER BY a.created_at DESC, a.id DESC LIMIT :limit";
+
+    @Query(value = "SELECT a.* FROM auctions a WHERE" + AFTER_CURSOR, nativeQuery = true)
+    List<Auction> findPage(@Param("createdAt") Instant createdAt, @Param("id") UUID id, @Param("limit") int limit);
+
+    @Query(value = "SELECT a.* FROM auctions a WHERE a.status = :status AND" + AFTER_CURSOR, nativeQuery = true)
+    List<Auction> findPageByStatus(@Param("status") String status,
+                                   @Param("createdAt") Instant createdAt, @Param("id") UUID id, @Param("limit") int limit);
+
+    @Query(value = SEARCH_BY_TEXT + " AND" + AFTER_CURSOR, nativeQuery = true)
+    List<Auction> findPageByText(@Param("q") String q,
+                                 @Param("createdAt") Instant createdAt, @Param("id") UUID id, @Param("limit") int limit);
+
+    @Query(value = SEARCH_BY_STATUS_AND_TEXT + " AND" + AFTER_CURSOR, nativeQuery = true)
+    List<Auction> findPageByStatusAndText(@Param("status") String status, @Param("q") String q,
+                                          @Param("createdAt") Instant createdAt, @Param("id") UUID id, @Param("limit") int limit);
+
     @Query("select a from Auction a " +
             "where (:status is null or a.status = :status) " +
             "and (:qLike is null or (lower(a.title) like lower(:qLike) or lower(a.description) like lower(:qLike)))")
@@ -62,13 +114,25 @@ public interface AuctionRepository extends JpaRepository<Auction, UUID> {
             Pageable pageable
     );
 
+    /**
+     * Detail of one auction in a single query: one row per image, in gallery order (one row with a null
+     * imageUrl if there are none). Feeds the read model of GET /api/auctions/{id}.
+     */
+    @Query("select new com.huyin.inner_auction.projection.AuctionDetailRow(" +
+            "a.id, a.sellerId, a.title, a.description, a.startingPrice, a.currentPrice, a.minIncrement, " +
+            "a.reservePrice, a.status, a.startAt, a.endAt, a.createdAt, a.version, ai.url) " +
+            "from Auction a left join a.images ai " +
+            "where a.id = :id order by ai.orderIndex asc")
+    List<AuctionDetailRow> findDetailRows(@Param("id") UUID id);
+
     List<Auction> findByStatusOrderByCreatedAtDesc(String status);
 
     /**
      * Find auctions that have ended (endAt before provided time) and are not yet settled.
-     * Used by finalizer/scheduler.
+     * Used by finalizer/scheduler. settled is null on rows inserted through JPA, so null counts as unsettled.
      */
-    List<Auction> findByEndAtBeforeAndSettledFalse(OffsetDateTime time);
+    @Query("select a from Auction a where a.endAt < :time and (a.settled is null or a.settled = false)")
+    List<Auction> findByEndAtBeforeAndSettledFalse(@Param("time") OffsetDateTime time);
 
     /**
      * Danh sách auctions theo status và search trong title (phân trang).
@@ -104,4 +168,86 @@ public interface AuctionRepository extends JpaRepository<Auction, UUID> {
      * Tìm auctions theo seller và trạng thái (dùng cho dashboard seller).
      */
     List<Auction> findBySellerIdAndStatus(UUID sellerId, String status);
-}
\ No newline at end of file
+
+    /**
+     * Cập nhật current_price không cần SELECT ... FOR UPDATE (dùng cho sharded bid engine).
+     * Compare-and-set: chỉ áp dụng khi auction còn mở (kể cả end_at trong DB, không tin endAt trong RAM) và
+     * current_price vẫn bằng {@code expected} (giá engine đã thấy); trả về 0 nếu state trong RAM đã cũ.
+     */
+    @Modifying
+    @Query(value = "UPDATE auctions SET current_price = :amount, version = version + 1 " +
+            "WHERE id = :id AND status = 'PUBLISHED' AND settled IS NOT TRUE " +
+            "AND (end_at IS NULL OR end_at > now()) " +
+            "AND current_price IS NOT DISTINCT FROM CAST(:expected AS numeric)",
+            nativeQuery = true)
+    int advanceCurrentPrice(@Param("id") UUID id, @Param("expected") BigDecimal expected, @Param("amount") BigDecimal amount);
+
+    /**
+     * Optimistic price update (app.bid.engine=optimistic): chỉ áp dụng khi version vẫn là {@code version}
+     * đã đọc và auction còn mở; trả về 0 nếu có bid khác commit trước.
+     */
+    @Modifying
+    @Query(value = "UPDATE auctions SET current_price = :amount, version = version + 1 " +
+            "WHERE id = :id AND version = :version AND status = 'PUBLISHED' AND settled IS NOT TRUE",
+            nativeQuery = true)
+    int updatePriceIfVersion(@Param("id") UUID id, @Param("version") long version, @Param("amount") BigDecimal amount);
+
+    /**
+     * Id của các auction đang mở (PUBLISHED, chưa settle) — dùng để nạp các cache trong RAM lúc khởi động.
+     */
+    @Query("select a.id from Auction a where a.status = 'PUBLISHED' and (a.settled is null or a.settled = false)")
+    List<UUID> findOpenAuctionIds();
+
+    /**
+     * Chỉ cột version (ETag của GET /api/auctions/{id}); empty nếu auction không tồn tại.
+     */
+    @Query("select a.version from Auction a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    /**
+     * Auctions created or updated (updated_at is set by trigger_set_updated_at) after {@code since}:
+     * delta reload of the in-memory search index.
+     */
+    @Query("select a from Auction a where a.createdAt > :since or a.updatedAt > :since")
+    List<Auction> findChangedSince(@Param("since") Instant since);
+
+    /**
+     * End time của các auction chưa settle — AuctionCloser nạp vào DelayQueue lúc khởi động.
+     */
+    @Query("select a.id as id, a.endAt as endAt from Auction a " +
+            "where a.endAt is not null and (a.settled is null or a.settled = false)")
+    List<AuctionEndView> findUnsettledEndTimes();
+
+    /**
+     * Summary columns for a batch of ids in one round trip (the ids are bound as a single uuid[] parameter);
+     * unknown ids are simply missing from the result.
+     */
+    @Query(value = "SELECT id AS id, current_price AS currentPrice, min_increment AS minIncrement, " +
+            "end_at AS endAt, status AS status FROM auctions WHERE id = ANY(CAST(:ids AS uuid[]))",
+            nativeQuery = true)
+    List<AuctionSummaryView> findSummariesByIds(@Param("ids") UUID[] ids);
+
+    /**
+     * Chỉ id + version của một nhóm auction (AuctionStreamHub dò thay đổi từ node khác).
+     */
+    @Query(value = "SELECT id AS id, version AS version FROM auctions WHERE id = ANY(CAST(:ids AS uuid[]))",
+            nativeQuery = true)
+    List<AuctionVersionView> findVersionsByIds(@Param("ids") UUID[] ids);
+
+    /**
+     * Finalizer work claim: lock the next ended, unsettled auction that no other transaction holds
+     * (FOR UPDATE SKIP LOCKED), skipping {@code excluded}; null if there is none.
+     * {@code excluded} must not be empty (pass a placeholder id).
+     */
+    @Query(value = "SELECT id FROM auctions WHERE end_at < now() AND settled IS NOT TRUE " +
+            "AND id NOT IN (:excluded) ORDER BY end_at LIMIT 1 FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    UUID claimNextEnded(@Param("excluded") List<UUID> excluded);
+
+    /**
+     * Lock one auction if it is still unsettled and not locked elsewhere; returns its id, or null if not claimed.
+     */
+    @Query(value = "SELECT id FROM auctions WHERE id = :id AND settled IS NOT TRUE FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    UUID claimUnsettled(@Param("id") UUID id);
+}
@@ -4,8 +4,11 @@ import com.huyin.inner_auction.entity.Bid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +28,15 @@ public interface BidRepository extends JpaRepository<Bid, UUID> {
      */
     Page<Bid> findByAuctionIdOrderByCreatedAtDesc(UUID auctionId, Pageable pageable);
 
+    /**
+     * Keyset page: bids of the auction older than the cursor (createdAt, id), newest first.
+     * Uses idx_bids_auction_created_id (V14).
+     */
+    @Query(value = "SELECT * FROM bids WHERE auction_id = :auctionId AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Bid> findPage(@Param("auctionId") UUID auctionId,
+                       @Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id, @Param("limit") int limit);
+
     /**
      * Lấy tất cả bid của một auction (không phân trang).
      *
@@ -33,6 +45,8 @@ public interface BidRepository extends JpaRepository<Bid, UUID> {
      */
     List<Bid> findByAuctionId(UUID auctionId);
 
+    long countByAuctionId(UUID auctionId);
+
     /**
      * Lấy các bid của một user (theo thời gian giảm dần).
      *
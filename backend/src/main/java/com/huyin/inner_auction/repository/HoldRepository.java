@@ -1,8 +1,15 @@
 package com.huyin.inner_auction.repository;
 
 import com.huyin.inner_auction.entity.Hold;
+import com.huyin.inner_auction.projection.HoldUpsertView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -10,6 +17,9 @@ import java.util.UUID;
 public interface HoldRepository extends JpaRepository<Hold, UUID> {
     List<Hold> findByUserIdAndStatus(UUID userId, String status);
 
+    // at most one HELD hold per (user, auction), see uq_hold_user_auction_held
+    Optional<Hold> findByUserIdAndAuctionIdAndStatus(UUID userId, UUID auctionId, String status);
+
     Optional<Hold> findTopByAuctionIdAndStatusOrderByCreatedAtDesc(UUID auctionId, String status);
 
     // find top hold for auction excluding a specific user (useful to find previous top before current user's update)
@@ -19,4 +29,49 @@ public interface HoldRepository extends JpaRepository<Hold, UUID> {
     Optional<Hold> findTopByAuctionIdAndStatusOrderByAmountDescCreatedAtDesc(UUID auctionId, String status);
 
     List<Hold> findByAuctionIdOrderByCreatedAtDesc(UUID auctionId);
-}
\ No newline at end of file
+
+    /**
+     * Create the user's HELD hold for the auction, or raise it to {@code amount} if one exists
+     * (amount = GREATEST(existing, amount)). Returns the hold id, its new amount and the amount
+     * before the call (null when the hold was created).
+     */
+    @Transactional
+    @Query(value = "WITH prev AS (" +
+            "  SELECT amount FROM holds WHERE user_id = :userId AND auction_id = :auctionId AND status = 'HELD' FOR UPDATE) " +
+            "INSERT INTO holds (id, user_id, auction_id, amount, status, created_at, updated_at) " +
+            "VALUES (:id, :userId, :auctionId, :amount, 'HELD', :now, :now) " +
+            "ON CONFLICT (user_id, auction_id) WHERE status = 'HELD' " +
+            "DO UPDATE SET amount = GREATEST(holds.amount, EXCLUDED.amount), updated_at = EXCLUDED.updated_at " +
+            "RETURNING id AS \"id\", amount AS \"amount\", (SELECT amount FROM prev) AS \"previousAmount\"",
+            nativeQuery = true)
+    HoldUpsertView upsertHeld(@Param("id") UUID id,
+                              @Param("userId") UUID userId,
+                              @Param("auctionId") UUID auctionId,
+                              @Param("amount") BigDecimal amount,
+                              @Param("now") OffsetDateTime now);
+
+    /**
+     * Finalize: release every other HELD hold of the auction in one statement, give the amounts back from
+     * users.held_total and write the REFUND escrow entry + RELEASE transaction of each released hold.
+     * Returns the number of holds released.
+     */
+    @Modifying
+    @Query(value = "WITH released AS (" +
+            "  UPDATE holds SET status = 'RELEASED', released_at = :now " +
+            "  WHERE auction_id = :auctionId AND status = 'HELD' AND id <> :winnerHoldId " +
+            "  RETURNING id, user_id, amount), " +
+            "held AS (" +
+            "  UPDATE users u SET held_total = GREATEST(u.held_total - r.total, 0) " +
+            "  FROM (SELECT user_id, sum(amount) AS total FROM released GROUP BY user_id) r WHERE u.id = r.user_id), " +
+            "escrow AS (" +
+            "  INSERT INTO escrow_entries (id, sale_id, user_id, amount, type, related_entity, reference_id, created_at) " +
+            "  SELECT uuid_generate_v4(), :saleId, user_id, amount, 'REFUND', 'HOLD', id, :now FROM released) " +
+            "INSERT INTO transactions (id, user_id, type, amount, reference_id, related_entity, status, created_at, direction, description) " +
+            "SELECT uuid_generate_v4(), user_id, 'RELEASE', amount, id, 'HOLD', 'COMPLETED', :now, 'IN', :description FROM released",
+            nativeQuery = true)
+    int releaseLosingHolds(@Param("auctionId") UUID auctionId,
+                           @Param("winnerHoldId") UUID winnerHoldId,
+                           @Param("saleId") UUID saleId,
+                           @Param("description") String description,
+                           @Param("now") OffsetDateTime now);
+}
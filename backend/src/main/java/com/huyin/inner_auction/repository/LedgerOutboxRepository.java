@@ -0,0 +1,11 @@
+package com.huyin.inner_auction.repository;
+
+import com.huyin.inner_auction.entity.LedgerOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface LedgerOutboxRepository extends JpaRepository<LedgerOutbox, UUID> {
+}
@@ -2,8 +2,11 @@ package com.huyin.inner_auction.repository;
 
 import com.huyin.inner_auction.entity.Message;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,4 +24,27 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
 
     // Lấy tất cả tin nhắn liên quan tới một user (inbox/outbox) theo thời gian giảm dần
     List<Message> findByFromUserOrToUserOrderByCreatedAtDesc(UUID fromUser, UUID toUser);
+
+    // Keyset pages (mới nhất trước, cũ hơn cursor). Mỗi nhánh UNION ALL là một index range scan có LIMIT
+    // (idx_messages_*_created_id, V14) thay cho OR trên hai cột.
+
+    @Query(value = "SELECT m.* FROM (" +
+            "(SELECT * FROM messages WHERE from_user = :userId AND (created_at, id) < (:createdAt, :id) " +
+            "  ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT * FROM messages WHERE to_user = :userId AND from_user <> :userId AND (created_at, id) < (:createdAt, :id) " +
+            "  ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+            ") m ORDER BY m.created_at DESC, m.id DESC LIMIT :limit", nativeQuery = true)
+    List<Message> findUserPage(@Param("userId") UUID userId,
+                               @Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id, @Param("limit") int limit);
+
+    @Query(value = "SELECT m.* FROM (" +
+            "(SELECT * FROM messages WHERE from_user = :userA AND to_user = :userB AND (created_at, id) < (:createdAt, :id) " +
+            "  ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT * FROM messages WHERE from_user = :userB AND to_user = :userA AND from_user <> to_user " +
+            "  AND (created_at, id) < (:createdAt, :id) ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+            ") m ORDER BY m.created_at DESC, m.id DESC LIMIT :limit", nativeQuery = true)
+    List<Message> findConversationPage(@Param("userA") UUID userA, @Param("userB") UUID userB,
+                                       @Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id, @Param("limit") int limit);
 }
\ No newline at end of file
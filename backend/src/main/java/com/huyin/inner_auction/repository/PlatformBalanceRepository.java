@@ -2,11 +2,38 @@ package com.huyin.inner_auction.repository;
 
 import com.huyin.inner_auction.entity.PlatformBalance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
 @Repository
 public interface PlatformBalanceRepository extends JpaRepository<PlatformBalance, UUID> {
     // Typically there will be a single row — callers can use findAll().stream().findFirst()
-}
\ No newline at end of file
+
+    /**
+     * Append a commission credit (finalize). Insert-only, so concurrent settlements never wait on each other;
+     * the amount reaches platform_balance at the next {@link #rollUpCommissionDeltas()}.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO platform_commission_deltas (auction_id, amount) VALUES (:auctionId, :amount)",
+            nativeQuery = true)
+    int recordCommissionDelta(@Param("auctionId") UUID auctionId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Move every visible delta into the platform_balance row in one statement (deleted + added atomically).
+     * Deltas are kept if there is no platform_balance row. Returns 1 if the balance was updated, 0 otherwise.
+     */
+    @Modifying
+    @Query(value = "WITH target AS (SELECT id FROM platform_balance ORDER BY id LIMIT 1), " +
+            "moved AS (DELETE FROM platform_commission_deltas WHERE EXISTS (SELECT 1 FROM target) RETURNING amount), " +
+            "total AS (SELECT SUM(amount) AS amount FROM moved) " +
+            "UPDATE platform_balance pb SET balance = pb.balance + total.amount, " +
+            "total_commission = pb.total_commission + total.amount, last_updated = now() " +
+            "FROM total, target WHERE pb.id = target.id AND total.amount IS NOT NULL",
+            nativeQuery = true)
+    int rollUpCommissionDeltas();
+}
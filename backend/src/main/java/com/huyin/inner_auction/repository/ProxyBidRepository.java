@@ -0,0 +1,39 @@
+package com.huyin.inner_auction.repository;
+
+import com.huyin.inner_auction.entity.ProxyBid;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ProxyBidRepository extends JpaRepository<ProxyBid, UUID> {
+
+    Optional<ProxyBid> findByAuctionIdAndUserIdAndStatus(UUID auctionId, UUID userId, String status);
+
+    /**
+     * Insert or replace the user's proxy on the auction (one row per auction+user).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO proxy_bids (id, auction_id, user_id, max_amount, status, created_at, updated_at) " +
+            "VALUES (:id, :auctionId, :userId, :maxAmount, :status, :now, :now) " +
+            "ON CONFLICT (auction_id, user_id) " +
+            "DO UPDATE SET max_amount = EXCLUDED.max_amount, status = EXCLUDED.status, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int upsert(@Param("id") UUID id,
+               @Param("auctionId") UUID auctionId,
+               @Param("userId") UUID userId,
+               @Param("maxAmount") BigDecimal maxAmount,
+               @Param("status") String status,
+               @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE proxy_bids SET status = 'INACTIVE', updated_at = :now " +
+            "WHERE auction_id = :auctionId AND user_id = :userId AND status = 'ACTIVE'",
+            nativeQuery = true)
+    int deactivate(@Param("auctionId") UUID auctionId, @Param("userId") UUID userId, @Param("now") OffsetDateTime now);
+}
@@ -2,8 +2,11 @@ package com.huyin.inner_auction.repository;
 
 import com.huyin.inner_auction.entity.Sale;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,4 +15,17 @@ public interface SaleRepository extends JpaRepository<Sale, UUID> {
     List<Sale> findByStatus(String status);
     List<Sale> findBySellerIdAndStatus(UUID sellerId, String status);
     List<Sale> findByBuyerIdAndStatus(UUID buyerId, String status);
-}
\ No newline at end of file
+
+    /**
+     * Auto-release work claim: lock the next {@code limit} ESCROWED sales whose release_due_at has passed,
+     * after the (afterDue, afterId) cursor, that no other transaction holds (FOR UPDATE SKIP LOCKED).
+     * Served by the partial index idx_sales_escrowed_release_due.
+     */
+    @Query(value = "SELECT * FROM sales WHERE status = 'ESCROWED' AND release_due_at IS NOT NULL " +
+            "AND release_due_at <= now() AND (release_due_at, id) > (:afterDue, :afterId) " +
+            "ORDER BY release_due_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Sale> claimDueForRelease(@Param("afterDue") OffsetDateTime afterDue,
+                                  @Param("afterId") UUID afterId,
+                                  @Param("limit") int limit);
+}
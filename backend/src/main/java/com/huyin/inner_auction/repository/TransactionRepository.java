@@ -4,8 +4,11 @@ import com.huyin.inner_auction.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,6 +26,15 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      */
     Page<Transaction> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
 
+    /**
+     * Keyset page: giao dịch của user cũ hơn cursor (createdAt, id), mới nhất trước.
+     * Dùng idx_transactions_user_created_id (V14).
+     */
+    @Query(value = "SELECT * FROM transactions WHERE user_id = :userId AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Transaction> findPage(@Param("userId") UUID userId,
+                               @Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id, @Param("limit") int limit);
+
     /**
      * Lấy lịch sử giao dịch của user theo loại giao dịch (type), có phân trang.
      *
@@ -2,8 +2,12 @@ package com.huyin.inner_auction.repository;
 
 import com.huyin.inner_auction.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,4 +15,20 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByEmail(String email);
+
+    /**
+     * Reserve {@code amount} on top of the user's held_total if available (balance - held_total) covers it.
+     * Returns 0 when funds are insufficient or the user does not exist.
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET held_total = held_total + :amount " +
+            "WHERE id = :id AND balance - held_total >= :amount", nativeQuery = true)
+    int reserveHeld(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Give back {@code amount} from held_total (hold released or used). Never goes below zero.
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET held_total = GREATEST(held_total - :amount, 0) WHERE id = :id", nativeQuery = true)
+    int releaseHeld(@Param("id") UUID id, @Param("amount") BigDecimal amount);
 }
@@ -3,12 +3,14 @@ package com.huyin.inner_auction.service;
 import com.huyin.inner_auction.dto.AuctionDto;
 import com.huyin.inner_auction.dto.AuctionSummaryDto;
 import com.huyin.inner_auction.dto.CreateAuctionRequest;
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.dto.NextBidDto;
 import com.huyin.inner_auction.entity.Auction;
 import com.huyin.inner_auction.entity.Bid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -17,9 +19,20 @@ import java.util.UUID;
 public interface AuctionService {
     Page<AuctionDto> listAuctions(String status, String qLike, Pageable pageable);
     Auction getAuction(UUID auctionId);
-    Page<Bid> listBidsForAuction(UUID auctionId, Pageable pageable);
+    /**
+     * @param minVersion auctions.version the response must not be older than (the ETag the caller sends)
+     */
+    Page<Bid> listBidsForAuction(UUID auctionId, Pageable pageable, long minVersion);
+    CursorPageDto<AuctionDto> listAuctionsByCursor(String status, String qLike, String cursor, Integer limit);
+    CursorPageDto<Bid> listBidsByCursor(UUID auctionId, String cursor, Integer limit, long minVersion);
     AuctionDto getAuctionById(UUID id);
+
+    /**
+     * Read model at auctions.version {@code minVersion} or newer (cached copies that are older are reloaded).
+     */
+    AuctionDto getAuctionById(UUID id, long minVersion);
     AuctionSummaryDto getAuctionSummary(UUID id);
+    List<AuctionSummaryDto> getAuctionSummaries(List<UUID> ids);
     NextBidDto getNextBid(UUID id, UUID userId);
     Auction createAuction(String userId, CreateAuctionRequest request) throws IllegalArgumentException, SecurityException;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.huyin.inner_auction.service;
 
+import com.huyin.inner_auction.dto.ProxyBidResultDto;
 import com.huyin.inner_auction.entity.Bid;
 
 import java.math.BigDecimal;
@@ -17,7 +18,30 @@ public interface BidService {
      * @param amount    bid amount
      * @return created Bid
      */
-    Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount);
+    default Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount) {
+        return placeBid(userId, auctionId, amount, null);
+    }
+
+    /**
+     * Place a bid, reserving the client's Idempotency-Key in the same transaction as the bid.
+     *
+     * @param idempotencyKey key scoped to the user, or null if the request carried none
+     * @return created Bid
+     * @throws com.huyin.inner_auction.service.impl.BidIdempotencyCache.DuplicateRequestException if the key was
+     *         already used by a committed bid
+     */
+    Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount, String idempotencyKey);
+
+    /**
+     * Register (or raise) a proxy bid: the engine bids on the user's behalf, by minIncrement,
+     * up to {@code maxAmount}. The user's hold is sized to the maximum.
+     *
+     * @param userId    bidder user id
+     * @param auctionId auction id
+     * @param maxAmount maximum the user is willing to pay
+     * @return price and leadership after the proxy was resolved against the current leader
+     */
+    ProxyBidResultDto placeProxyBid(UUID userId, UUID auctionId, BigDecimal maxAmount);
 
     /**
      * Finalize auctions that have ended (settle payments, payouts).
@@ -1,5 +1,6 @@
 package com.huyin.inner_auction.service;
 
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.entity.Message;
 
 import java.util.List;
@@ -11,8 +12,8 @@ import java.util.UUID;
  * Vietnamese:
  * - sendMessage: gửi tin nhắn (có thể liên quan auction hoặc sale)
  * - getMessagesByAuction / getMessagesBySale: lấy lịch sử tin nhắn
- * - getConversation: lấy tin nhắn giữa 2 user
- * - getUserMessages: inbox + outbox cho 1 user
+ * - getConversation: lấy tin nhắn giữa 2 user (cursor, mới nhất trước)
+ * - getUserMessages: inbox + outbox cho 1 user (cursor, mới nhất trước)
  */
 public interface MessageService {
     Message sendMessage(UUID fromUserId, UUID toUserId, UUID auctionId, UUID saleId, String content);
@@ -21,7 +22,7 @@ public interface MessageService {
 
     List<Message> getMessagesBySale(UUID saleId);
 
-    List<Message> getConversation(UUID userA, UUID userB);
+    CursorPageDto<Message> getConversation(UUID userA, UUID userB, String cursor, Integer limit);
 
-    List<Message> getUserMessages(UUID userId);
+    CursorPageDto<Message> getUserMessages(UUID userId, String cursor, Integer limit);
 }
\ No newline at end of file
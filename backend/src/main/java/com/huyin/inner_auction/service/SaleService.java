@@ -1,6 +1,7 @@
 package com.huyin.inner_auction.service;
 
 import com.huyin.inner_auction.entity.Sale;
+import com.huyin.inner_auction.entity.Shipment;
 
 import java.util.UUID;
 
@@ -10,6 +11,7 @@ import java.util.UUID;
  * Vietnamese:
  * - confirmDelivery: buyer xác nhận đã nhận hàng -> gọi để release tiền cho seller
  * - releaseFunds: thực hiện chuyển tiền (net_amount) cho seller, tạo transaction, ghi escrow entry
+ * - recordShipment: seller báo đã gửi hàng -> lưu shipment và đặt hạn auto-release (release_due_at)
  * - autoReleasePendingSales: job gọi định kỳ để tự động release theo policy (scheduler sẽ gọi)
  */
 public interface SaleService {
@@ -31,9 +33,22 @@ public interface SaleService {
      */
     Sale releaseFunds(UUID adminOrSystemUserId, UUID saleId);
 
+    /**
+     * Seller báo đã gửi hàng: lưu shipment và đặt release_due_at = shipped_at + N ngày
+     * (giữ hạn sớm hơn nếu đã có).
+     *
+     * @param saleId         id của sale
+     * @param carrier        đơn vị vận chuyển
+     * @param trackingNumber mã vận đơn
+     * @param labelUrl       link nhãn gửi hàng (optional)
+     * @return Shipment đã lưu
+     */
+    Shipment recordShipment(UUID saleId, String carrier, String trackingNumber, String labelUrl);
+
     /**
      * Scheduler gọi để auto-release các sale đang ở trạng thái ESCROWED
      * theo policy (ví dụ buyer không confirm trong X ngày hoặc shipped_at + N ngày).
+     * Chỉ đọc các sale đã tới release_due_at.
      */
     void autoReleasePendingSales();
 }
\ No newline at end of file
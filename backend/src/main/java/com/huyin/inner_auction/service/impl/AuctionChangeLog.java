@@ -0,0 +1,201 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.AuctionChangesDto;
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Change log giá / trạng thái auction cho long-poll GET /api/auctions/changes?since= (client không giữ được SSE).
+ *
+ * Vietnamese:
+ * - Mỗi thay đổi sau commit (BidPlacedEvent: giá mới, AuctionFinalizedEvent: FINISHED) nhận một sequence chung
+ *   tăng dần và được giữ trong ring N phần tử gần nhất (app.auction.changes.capacity).
+ * - Có thay đổi sau since: trả ngay, mỗi auction một dòng (giá / status mới nhất). Không có: request được park
+ *   (DeferredResult) tới khi có thay đổi hoặc hết thời gian chờ, không giữ thread của servlet container.
+ * - Đánh thức request đang park chạy trên thread riêng ("auction-changes") để không làm chậm request đặt bid.
+ * - Cursor trả cho client là "<nodeId>.<seq>": sequence chỉ có nghĩa trong process này, nodeId sinh ngẫu nhiên
+ *   lúc khởi động. Cursor của node khác / trước restart, cursor không đọc được, since cũ hơn ring hoặc lớn hơn
+ *   sequence hiện tại -> reset=true, client tải lại rồi đi tiếp từ cursor mới.
+ * - Chỉ thấy thay đổi commit trên node này (event trong process). Thay đổi commit trên replica khác KHÔNG được
+ *   gửi qua feed này; client sau load balancer cần sticky session, hoặc tải lại định kỳ.
+ */
+@Component
+@Slf4j
+public class AuctionChangeLog {
+
+    private static final class Change {
+        final long seq;
+        final UUID auctionId;
+        final BigDecimal price;
+        final String status;
+
+        Change(long seq, UUID auctionId, BigDecimal price, String status) {
+            this.seq = seq;
+            this.auctionId = auctionId;
+            this.price = price;
+            this.status = status;
+        }
+    }
+
+    private static final class Waiter {
+        final long since;
+        final DeferredResult<AuctionChangesDto> result;
+
+        Waiter(long since, DeferredResult<AuctionChangesDto> result) {
+            this.since = since;
+            this.result = result;
+        }
+    }
+
+    // random per process, so a cursor issued by another replica (or before a restart) is recognized as foreign
+    private final String nodeId = Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36);
+    private final int capacity;
+    private final long maxWaitMs;
+    private final Deque<Change> entries = new ArrayDeque<>();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private long lastSeq;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "auction-changes");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AuctionChangeLog(@Value("${app.auction.changes.capacity:10000}") int capacity,
+                            @Value("${app.auction.changes.max-wait-ms:25000}") long maxWaitMs) {
+        this.capacity = Math.max(1, capacity);
+        this.maxWaitMs = Math.max(1000L, maxWaitMs);
+    }
+
+    /**
+     * Changes after the {@code cursor} of a previous response ("0" or empty: from the start of this node's log),
+     * answered now if there are any, otherwise when the next change arrives or after {@code waitMs}
+     * (capped by app.auction.changes.max-wait-ms) with an empty list.
+     */
+    public DeferredResult<AuctionChangesDto> poll(String cursor, long waitMs) {
+        long timeout = Math.min(Math.max(0L, waitMs), maxWaitMs);
+        DeferredResult<AuctionChangesDto> result = new DeferredResult<>(timeout);
+        long since = parseCursor(cursor);
+        AuctionChangesDto ready = changesSince(since);
+        if (ready.isReset() || !ready.getChanges().isEmpty() || timeout == 0) {
+            result.setResult(ready);
+            return result;
+        }
+        Waiter waiter = new Waiter(since, result);
+        result.onTimeout(() -> result.setResult(changesSince(since)));
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        // a change may have landed between the check and the registration
+        if (latestSeq() > since) wake();
+        return result;
+    }
+
+    /**
+     * Local sequence of a cursor; -1 if it was issued by another node or process, or cannot be read.
+     */
+    long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank() || cursor.equals("0")) return 0L;
+        int dot = cursor.lastIndexOf('.');
+        if (dot <= 0 || !cursor.substring(0, dot).equals(nodeId)) return -1L;
+        try {
+            return Long.parseLong(cursor.substring(dot + 1));
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
+    String cursor(long seq) {
+        return nodeId + "." + seq;
+    }
+
+    AuctionChangesDto changesSince(long since) {
+        synchronized (entries) {
+            boolean reset = since < 0 || since > lastSeq || (!entries.isEmpty() && since < entries.peekFirst().seq - 1);
+            Map<UUID, AuctionChangesDto.Change> latest = new LinkedHashMap<>();
+            if (!reset) {
+                for (Change c : entries) {
+                    if (c.seq <= since) continue;
+                    AuctionChangesDto.Change merged = latest.remove(c.auctionId);
+                    if (merged == null) merged = AuctionChangesDto.Change.builder().auctionId(c.auctionId).build();
+                    merged.setSeq(c.seq);
+                    if (c.price != null) merged.setCurrentPrice(c.price);
+                    if (c.status != null) merged.setStatus(c.status);
+                    latest.put(c.auctionId, merged); // re-insert: list ends with the most recently changed
+                }
+            }
+            return AuctionChangesDto.builder()
+                    .cursor(cursor(lastSeq))
+                    .reset(reset)
+                    .changes(new ArrayList<>(latest.values()))
+                    .build();
+        }
+    }
+
+    long latestSeq() {
+        synchronized (entries) {
+            return lastSeq;
+        }
+    }
+
+    void append(UUID auctionId, BigDecimal price, String status) {
+        synchronized (entries) {
+            entries.addLast(new Change(++lastSeq, auctionId, price, status));
+            while (entries.size() > capacity) entries.removeFirst();
+        }
+        wake();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBidPlaced(BidPlacedEvent event) {
+        append(event.getAuctionId(), event.getPrice(), null);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionFinalized(AuctionFinalizedEvent event) {
+        append(event.getAuctionId(), null, "FINISHED");
+    }
+
+    private void wake() {
+        if (waiters.isEmpty()) return;
+        dispatcher.execute(() -> {
+            long seq = latestSeq();
+            Iterator<Waiter> it = waiters.iterator();
+            while (it.hasNext()) {
+                Waiter w = it.next();
+                if (w.since >= seq) continue;
+                it.remove();
+                try {
+                    w.result.setResult(changesSince(w.since));
+                } catch (Exception ex) {
+                    log.debug("AuctionChangeLog: could not complete poll: {}", ex.getMessage());
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+}
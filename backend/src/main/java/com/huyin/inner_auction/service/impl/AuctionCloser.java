@@ -0,0 +1,131 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
+import com.huyin.inner_auction.event.AuctionScheduledEvent;
+import com.huyin.inner_auction.projection.AuctionEndView;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import com.huyin.inner_auction.service.BidService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finalize mỗi auction ngay khi tới endAt, thay cho việc chờ AuctionFinalizerScheduler quét (giờ chỉ là lưới an toàn).
+ *
+ * Vietnamese:
+ * - DelayQueue chứa (auctionId, endAt); nạp lúc khởi động từ các auction chưa settle,
+ *   thêm/cập nhật từ AuctionScheduledEvent (tạo mới hoặc gia hạn endAt).
+ * - Gia hạn chỉ ghi đè endAt trong map; entry cũ trong queue bị bỏ qua khi tới hạn vì endAt không còn khớp.
+ * - Một thread "auction-closer" gọi BidService.finalizeAuction; lỗi chỉ được log, lần quét kế tiếp sẽ thử lại.
+ * - Chỉ đúng trong một process; chạy nhiều node thì finalize tự bảo vệ bằng row lock + cờ settled.
+ */
+@Component
+@Slf4j
+public class AuctionCloser {
+
+    private static final class Entry implements Delayed {
+        final UUID auctionId;
+        final Instant endAt;
+
+        Entry(UUID auctionId, Instant endAt) {
+            this.auctionId = auctionId;
+            this.endAt = endAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(endAt.toEpochMilli() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return endAt.compareTo(((Entry) other).endAt);
+        }
+    }
+
+    private final BidService bidService;
+    private final AuctionRepository auctionRepository;
+    private final DelayQueue<Entry> queue = new DelayQueue<>();
+    private final Map<UUID, Instant> scheduled = new ConcurrentHashMap<>();
+    private volatile Thread worker;
+
+    public AuctionCloser(BidService bidService, AuctionRepository auctionRepository) {
+        this.bidService = bidService;
+        this.auctionRepository = auctionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            List<AuctionEndView> unsettled = auctionRepository.findUnsettledEndTimes();
+            for (AuctionEndView view : unsettled) {
+                schedule(view.getId(), view.getEndAt());
+            }
+            log.info("AuctionCloser: scheduled {} unsettled auctions", unsettled.size());
+        } catch (Exception ex) {
+            log.error("AuctionCloser: initial load failed, relying on the finalizer sweep", ex);
+        }
+        Thread t = new Thread(this::run, "auction-closer");
+        t.setDaemon(true);
+        t.start();
+        worker = t;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionScheduled(AuctionScheduledEvent event) {
+        schedule(event.getAuctionId(), event.getEndAt());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionFinalized(AuctionFinalizedEvent event) {
+        // finalized by the sweep or an admin before its timer fired
+        scheduled.remove(event.getAuctionId());
+    }
+
+    public void schedule(UUID auctionId, Instant endAt) {
+        if (auctionId == null || endAt == null) return;
+        scheduled.put(auctionId, endAt);
+        queue.put(new Entry(auctionId, endAt));
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = worker;
+        if (t != null) t.interrupt();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Entry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // stale entry: end time was extended, or the auction is already finalized
+            if (!entry.endAt.equals(scheduled.get(entry.auctionId))) continue;
+            try {
+                bidService.finalizeAuction(entry.auctionId);
+                scheduled.remove(entry.auctionId, entry.endAt);
+                log.debug("AuctionCloser: finalized {} ({} ms after end)", entry.auctionId,
+                        System.currentTimeMillis() - entry.endAt.toEpochMilli());
+            } catch (Exception ex) {
+                log.error("AuctionCloser: finalizing auction {} failed; the sweep will retry", entry.auctionId, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.huyin.inner_auction.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Chạy finalize nhiều auction song song: mỗi auction một transaction riêng (REQUIRES_NEW) trên pool có giới hạn.
+ *
+ * Vietnamese:
+ * - Mỗi worker lặp: claim auction kế tiếp bằng FOR UPDATE SKIP LOCKED rồi settle trong cùng transaction.
+ *   Nhiều node cùng quét thì chia nhau auction thay vì chờ lock của nhau.
+ * - Auction chậm / lỗi chỉ giữ lock của chính nó; các auction khác vẫn settle và commit độc lập.
+ * - Mỗi auction được thử tối đa app.auction.finalize.max-attempts lần (backoff tăng dần, vd. deadlock / lock timeout).
+ * - Hết số lần thử: ghi vào finalization_dead_letters (attempts cộng dồn qua các lần quét); thành công thì xóa dòng đó.
+ *   Chỉ xóa khi auction phải retry hoặc đã có trong dead letter lúc bắt đầu quét, để settle bình thường
+ *   không tốn thêm một DELETE.
+ */
+@Component
+@Slf4j
+public class AuctionFinalizationPool {
+
+    private static final String RECORD_DEAD_LETTER =
+            "INSERT INTO finalization_dead_letters (auction_id, attempts, last_error, first_failed_at, last_failed_at) " +
+            "VALUES (?, ?, ?, now(), now()) " +
+            "ON CONFLICT (auction_id) DO UPDATE SET attempts = finalization_dead_letters.attempts + EXCLUDED.attempts, " +
+            "last_error = EXCLUDED.last_error, last_failed_at = EXCLUDED.last_failed_at";
+
+    private static final String DEAD_LETTERED_IDS = "SELECT auction_id FROM finalization_dead_letters";
+
+    private static final String CLEAR_DEAD_LETTER = "DELETE FROM finalization_dead_letters WHERE auction_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final ThreadPoolExecutor executor;
+    private final int workers;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public AuctionFinalizationPool(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.auction.finalize.workers:4}") int workers,
+                                   @Value("${app.auction.finalize.max-attempts:3}") int maxAttempts,
+                                   @Value("${app.auction.finalize.retry-backoff-ms:500}") long backoffMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = Math.max(0, backoffMs);
+        this.workers = Math.max(1, workers);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "auction-finalizer-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Claim and settle ended auctions until none is left, on every worker in parallel.
+     * Each claim + settle runs in its own transaction; claims use SKIP LOCKED, so several nodes draining
+     * at once split the work instead of waiting on each other's row locks.
+     *
+     * @param claimNext locks and returns the next ended, unsettled auction not in the given list (null if none)
+     * @param claimOne  locks the given auction if it is still unsettled and not locked elsewhere
+     * @param settle    settles one claimed auction
+     * @return number of auctions dead-lettered
+     */
+    public int drain(Function<List<UUID>, UUID> claimNext, Predicate<UUID> claimOne, Consumer<UUID> settle) {
+        // auctions this node is retrying or has given up on in this sweep; other workers must not claim them
+        Set<UUID> skip = ConcurrentHashMap.newKeySet();
+        // rows to clear if these settle now; normally empty
+        Set<UUID> knownDeadLetters = Set.copyOf(jdbcTemplate.queryForList(DEAD_LETTERED_IDS, UUID.class));
+        AtomicInteger deadLettered = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> drainLoop(claimNext, claimOne, settle, skip, knownDeadLetters, deadLettered)));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ex) {
+                log.error("Finalization worker crashed", ex.getCause());
+            }
+        }
+        if (deadLettered.get() > 0) log.warn("Finalization sweep: {} auctions dead-lettered", deadLettered.get());
+        return deadLettered.get();
+    }
+
+    private void drainLoop(Function<List<UUID>, UUID> claimNext, Predicate<UUID> claimOne, Consumer<UUID> settle,
+                           Set<UUID> skip, Set<UUID> knownDeadLetters, AtomicInteger deadLettered) {
+        while (!Thread.currentThread().isInterrupted()) {
+            UUID[] claimed = new UUID[1];
+            try {
+                Boolean found = requiresNew.execute(status -> {
+                    UUID auctionId = claimNext.apply(List.copyOf(skip));
+                    if (auctionId == null) return false;
+                    claimed[0] = auctionId;
+                    settle.accept(auctionId);
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(found)) return;
+                if (knownDeadLetters.contains(claimed[0])) jdbcTemplate.update(CLEAR_DEAD_LETTER, claimed[0]);
+            } catch (Exception ex) {
+                if (claimed[0] == null) {
+                    log.error("Could not claim an ended auction", ex);
+                    return;
+                }
+                skip.add(claimed[0]);
+                log.warn("Finalizing auction {} failed (attempt 1/{}): {}", claimed[0], maxAttempts, ex.getMessage());
+                if (!retry(claimed[0], claimOne, settle, ex)) deadLettered.incrementAndGet();
+            }
+        }
+    }
+
+    // attempts 2..maxAttempts; false if the auction ended up dead-lettered
+    private boolean retry(UUID auctionId, Predicate<UUID> claimOne, Consumer<UUID> settle, Exception first) {
+        Exception last = first;
+        for (int attempt = 2; attempt <= maxAttempts; attempt++) {
+            if (!sleep(backoffMs * (attempt - 1))) break;
+            try {
+                requiresNew.executeWithoutResult(status -> {
+                    // already settled, or taken by another node: nothing left for us to do
+                    if (claimOne.test(auctionId)) settle.accept(auctionId);
+                });
+                log.info("Auction {} finalized on attempt {}", auctionId, attempt);
+                jdbcTemplate.update(CLEAR_DEAD_LETTER, auctionId);
+                return true;
+            } catch (Exception ex) {
+                last = ex;
+                log.warn("Finalizing auction {} failed (attempt {}/{}): {}", auctionId, attempt, maxAttempts, ex.getMessage());
+            }
+        }
+        try {
+            jdbcTemplate.update(RECORD_DEAD_LETTER, auctionId, maxAttempts, String.valueOf(last));
+        } catch (Exception ex) {
+            log.error("Could not dead-letter auction {}", auctionId, ex);
+        }
+        log.error("Auction {} dead-lettered after {} attempts", auctionId, maxAttempts, last);
+        return false;
+    }
+
+    private static boolean sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -13,8 +13,8 @@ public class AuctionFinalizerScheduler {
 
     private final BidService bidService;
 
-    // Run every minute
-    @Scheduled(fixedDelayString = "${app.auction.finalizer-interval-ms:60000}")
+    // Safety net: AuctionCloser finalizes each auction at its endAt; this sweep catches anything it missed
+    @Scheduled(fixedDelayString = "${app.auction.finalizer-interval-ms:600000}")
     public void runFinalizer() {
         try {
             bidService.finalizeEndedAuctions();
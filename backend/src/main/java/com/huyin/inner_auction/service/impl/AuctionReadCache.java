@@ -0,0 +1,272 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.AuctionDto;
+import com.huyin.inner_auction.dto.AuctionSummaryDto;
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
+import com.huyin.inner_auction.event.AuctionScheduledEvent;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import com.huyin.inner_auction.projection.AuctionDetailRow;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache read model (auction + image URLs) cho getAuctionById / getAuctionSummary / getNextBid.
+ *
+ * Vietnamese:
+ * - LinkedHashMap theo thứ tự truy cập (LRU) có giới hạn kích thước + TTL, giống BidIdempotencyCache.
+ * - Single-flight: nhiều request miss cùng một auction chỉ tạo một lần load DB, các request khác chờ kết quả đó.
+ * - Sau commit: BidPlacedEvent cập nhật giá tại chỗ (giá chỉ tăng, nên event tới trễ không ghi đè giá mới hơn);
+ *   AuctionFinalizedEvent / AuctionScheduledEvent thì xoá entry. Load đang chạy lúc bị invalidate thì không được cache.
+ * - Bid commit trên node khác không tới đây: TTL (app.auction.cache.ttl-ms) giới hạn độ cũ.
+ * - Mỗi view nhớ auctions.version lúc load. GET có ETag gọi get(id, minVersion) với version vừa đọc từ DB:
+ *   view cũ hơn thì load lại, nên body không bao giờ cũ hơn ETag. Giá cập nhật từ event giữ version cũ
+ *   (không biết version mới), nên lần đọc có version sau một bid sẽ load lại.
+ */
+@Component
+@Slf4j
+public class AuctionReadCache {
+
+    /**
+     * Immutable snapshot of one auction; hands out fresh DTOs so callers cannot mutate the cached copy.
+     */
+    static final class View {
+        final UUID id;
+        final UUID sellerId;
+        final String title;
+        final String description;
+        final BigDecimal startingPrice;
+        final BigDecimal currentPrice;
+        final BigDecimal minIncrement;
+        final BigDecimal reservePrice;
+        final String status;
+        final Instant startAt;
+        final Instant endAt;
+        final Instant createdAt;
+        final long version; // auctions.version the row was read at
+        final List<String> images;
+
+        View(AuctionDetailRow r, List<String> images) {
+            this(r.getId(), r.getSellerId(), r.getTitle(), r.getDescription(), r.getStartingPrice(), r.getCurrentPrice(),
+                    r.getMinIncrement(), r.getReservePrice(), r.getStatus(), r.getStartAt(), r.getEndAt(), r.getCreatedAt(),
+                    r.getVersion() == null ? 0L : r.getVersion(), images);
+        }
+
+        private View(UUID id, UUID sellerId, String title, String description, BigDecimal startingPrice,
+                     BigDecimal currentPrice, BigDecimal minIncrement, BigDecimal reservePrice, String status,
+                     Instant startAt, Instant endAt, Instant createdAt, long version, List<String> images) {
+            this.id = id;
+            this.sellerId = sellerId;
+            this.title = title;
+            this.description = description;
+            this.startingPrice = startingPrice;
+            this.currentPrice = currentPrice;
+            this.minIncrement = minIncrement;
+            this.reservePrice = reservePrice;
+            this.status = status;
+            this.startAt = startAt;
+            this.endAt = endAt;
+            this.createdAt = createdAt;
+            this.version = version;
+            this.images = List.copyOf(images);
+        }
+
+        // keeps the loaded version: the new one is unknown here, so a versioned read reloads
+        View withPrice(BigDecimal price) {
+            return new View(id, sellerId, title, description, startingPrice, price, minIncrement, reservePrice, status,
+                    startAt, endAt, createdAt, version, images);
+        }
+
+        AuctionDto toDto() {
+            return AuctionDto.builder()
+                    .id(id)
+                    .sellerId(sellerId)
+                    .title(title)
+                    .description(description)
+                    .startingPrice(startingPrice)
+                    .currentPrice(currentPrice)
+                    .minIncrement(minIncrement)
+                    .reservePrice(reservePrice)
+                    .status(status)
+                    .startAt(utc(startAt))
+                    .endAt(utc(endAt))
+                    .createdAt(utc(createdAt))
+                    .images(images)
+                    .imageUrl(images.isEmpty() ? null : images.get(0))
+                    .build();
+        }
+
+        AuctionSummaryDto toSummary() {
+            return AuctionSummaryDto.builder()
+                    .id(id)
+                    .currentPrice(currentPrice)
+                    .minIncrement(minIncrement)
+                    .endAt(utc(endAt))
+                    .status(status)
+                    .build();
+        }
+
+        private static OffsetDateTime utc(Instant instant) {
+            return instant == null ? null : OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+        }
+    }
+
+    private static final class Entry {
+        final View view;
+        final long expiresAtMillis;
+
+        Entry(View view, long expiresAtMillis) {
+            this.view = view;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final AuctionRepository auctionRepository;
+    private final long ttlMillis;
+    private final Map<UUID, Entry> entries;
+    private final Map<UUID, CompletableFuture<Optional<View>>> loading = new ConcurrentHashMap<>();
+
+    public AuctionReadCache(AuctionRepository auctionRepository,
+                            @Value("${app.auction.cache.ttl-ms:30000}") long ttlMillis,
+                            @Value("${app.auction.cache.max-entries:10000}") int maxEntries) {
+        this.auctionRepository = auctionRepository;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached view, or loaded once for all concurrent callers; empty if the auction does not exist.
+     */
+    Optional<View> get(UUID auctionId) {
+        return get(auctionId, Long.MIN_VALUE);
+    }
+
+    /**
+     * Like {@link #get(UUID)}, but never older than {@code minVersion} (an auctions.version already committed):
+     * a cached or in-flight view read before that version is replaced by a fresh load.
+     */
+    Optional<View> get(UUID auctionId, long minVersion) {
+        synchronized (entries) {
+            Entry e = entries.get(auctionId);
+            if (e != null) {
+                if (e.expiresAtMillis > System.currentTimeMillis() && e.view.version >= minVersion) {
+                    return Optional.of(e.view);
+                }
+                entries.remove(auctionId);
+            }
+        }
+
+        CompletableFuture<Optional<View>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<View>> running = loading.putIfAbsent(auctionId, mine);
+        if (running != null) {
+            Optional<View> shared = join(running);
+            // that load may have read the row before minVersion committed
+            if (shared.isEmpty() || shared.get().version >= minVersion) return shared;
+            return load(auctionId);
+        }
+
+        try {
+            Optional<View> view = load(auctionId);
+            // not invalidated while loading: safe to cache
+            if (view.isPresent() && loading.remove(auctionId, mine)) {
+                synchronized (entries) {
+                    entries.put(auctionId, new Entry(view.get(), System.currentTimeMillis() + ttlMillis));
+                }
+            }
+            mine.complete(view);
+            return view;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(auctionId, mine);
+        }
+    }
+
+    /**
+     * Cached view if present and fresh; never loads.
+     */
+    Optional<View> peek(UUID auctionId) {
+        synchronized (entries) {
+            Entry e = entries.get(auctionId);
+            if (e == null || e.expiresAtMillis <= System.currentTimeMillis()) return Optional.empty();
+            return Optional.of(e.view);
+        }
+    }
+
+    /**
+     * Drop the cached view so the next read loads it again.
+     */
+    public void invalidate(UUID auctionId) {
+        loading.remove(auctionId);
+        synchronized (entries) {
+            entries.remove(auctionId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBidPlaced(BidPlacedEvent event) {
+        loading.remove(event.getAuctionId());
+        if (event.getPrice() == null) return;
+        synchronized (entries) {
+            Entry e = entries.get(event.getAuctionId());
+            if (e == null) return;
+            BigDecimal cached = e.view.currentPrice;
+            if (cached == null || cached.compareTo(event.getPrice()) < 0) {
+                entries.put(event.getAuctionId(), new Entry(e.view.withPrice(event.getPrice()), e.expiresAtMillis));
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionFinalized(AuctionFinalizedEvent event) {
+        invalidate(event.getAuctionId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionScheduled(AuctionScheduledEvent event) {
+        invalidate(event.getAuctionId());
+    }
+
+    // one query (auction left join images), no entity is loaded
+    private Optional<View> load(UUID auctionId) {
+        List<AuctionDetailRow> rows = auctionRepository.findDetailRows(auctionId);
+        if (rows.isEmpty()) return Optional.empty();
+        List<String> images = rows.stream()
+                .map(AuctionDetailRow::getImageUrl)
+                .filter(Objects::nonNull)
+                .toList();
+        return Optional.of(new View(rows.get(0), images));
+    }
+
+    private static Optional<View> join(CompletableFuture<Optional<View>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.AuctionSearchResultDto;
+import com.huyin.inner_auction.entity.Auction;
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
+import com.huyin.inner_auction.event.AuctionScheduledEvent;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Search box của GET /api/auctions/search, trả lời từ AuctionSearchIndex trong RAM thay vì LIKE trên Postgres.
+ *
+ * Vietnamese:
+ * - Nạp toàn bộ auctions lúc khởi động (ApplicationReadyEvent); trước khi nạp xong search trả rỗng.
+ * - Cập nhật từng phần sau commit: auction mới (AuctionScheduledEvent), giá mới (BidPlacedEvent),
+ *   FINISHED khi finalize (AuctionFinalizedEvent). Các event này chỉ đến từ node hiện tại.
+ * - Thay đổi từ node khác (hoặc sửa thẳng DB): định kỳ nạp lại các auction có created_at / updated_at sau lần
+ *   đồng bộ trước (app.auction.search.delta-interval-ms). Mốc được lùi lại app.auction.search.delta-overlap-ms
+ *   vì now() trong Postgres là lúc transaction bắt đầu, không phải lúc commit; nạp trùng thì chỉ ghi đè doc.
+ * - Facet đếm trên toàn bộ kết quả khớp (không chỉ page hiện tại): theo status và theo khoảng giá
+ *   (mốc giá: app.auction.search.price-buckets).
+ */
+@Component
+@Slf4j
+public class AuctionSearchEngine {
+
+    private final AuctionRepository auctionRepository;
+    private final BigDecimal[] priceBounds;
+    private final long deltaOverlapMs;
+    private final AuctionSearchIndex index = new AuctionSearchIndex();
+    // start of the last successful (full or delta) load; null until the initial build succeeded
+    private volatile Instant lastSync;
+
+    public AuctionSearchEngine(AuctionRepository auctionRepository,
+                               @Value("${app.auction.search.price-buckets:1000000,10000000,100000000}") String priceBuckets,
+                               @Value("${app.auction.search.delta-overlap-ms:60000}") long deltaOverlapMs) {
+        this.auctionRepository = auctionRepository;
+        this.deltaOverlapMs = Math.max(0, deltaOverlapMs);
+        this.priceBounds = Arrays.stream(priceBuckets.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+    }
+
+    public AuctionSearchResultDto search(String q, String status, int page, int size) {
+        String statusFilter = (status == null || status.isBlank()) ? null : status.trim().toUpperCase();
+        List<AuctionSearchIndex.Match> matches = index.search(q, statusFilter, Instant.now());
+
+        Map<String, Long> statusFacet = new TreeMap<>();
+        Map<String, Long> priceFacet = new LinkedHashMap<>();
+        for (String label : bucketLabels()) priceFacet.put(label, 0L);
+        for (AuctionSearchIndex.Match m : matches) {
+            String s = m.getDoc().getStatus() == null ? "UNKNOWN" : m.getDoc().getStatus();
+            statusFacet.merge(s, 1L, Long::sum);
+            if (m.getDoc().getCurrentPrice() != null) {
+                priceFacet.merge(bucketLabel(m.getDoc().getCurrentPrice()), 1L, Long::sum);
+            }
+        }
+
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        List<AuctionSearchResultDto.Hit> items = new ArrayList<>(to - from);
+        for (AuctionSearchIndex.Match m : matches.subList(from, to)) {
+            AuctionSearchIndex.Doc d = m.getDoc();
+            items.add(AuctionSearchResultDto.Hit.builder()
+                    .id(d.getId())
+                    .title(d.getTitle())
+                    .status(d.getStatus())
+                    .currentPrice(d.getCurrentPrice())
+                    .endAt(d.getEndAt() == null ? null : d.getEndAt().atOffset(ZoneOffset.UTC))
+                    .score(m.getScore())
+                    .build());
+        }
+
+        return AuctionSearchResultDto.builder()
+                .items(items)
+                .total(matches.size())
+                .page(page)
+                .size(size)
+                .statusFacet(statusFacet)
+                .priceFacet(priceFacet)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            Instant started = Instant.now();
+            List<Auction> all = auctionRepository.findAll();
+            for (Auction a : all) index.put(toDoc(a));
+            lastSync = started;
+            log.info("AuctionSearchEngine: indexed {} auctions", all.size());
+        } catch (Exception ex) {
+            log.error("AuctionSearchEngine: initial build failed, new auctions are still indexed as they arrive", ex);
+        }
+    }
+
+    /**
+     * Pick up auctions created or changed elsewhere since the last sync; falls back to a full build if the
+     * initial one failed.
+     */
+    @Scheduled(fixedDelayString = "${app.auction.search.delta-interval-ms:30000}",
+            initialDelayString = "${app.auction.search.delta-interval-ms:30000}")
+    public void reloadChanged() {
+        Instant since = lastSync;
+        if (since == null) {
+            rebuild();
+            return;
+        }
+        try {
+            Instant started = Instant.now();
+            List<Auction> changed = auctionRepository.findChangedSince(since.minusMillis(deltaOverlapMs));
+            for (Auction a : changed) index.put(toDoc(a));
+            lastSync = started;
+            log.debug("AuctionSearchEngine: delta reload indexed {} auctions", changed.size());
+        } catch (Exception ex) {
+            log.error("AuctionSearchEngine: delta reload failed, retrying on the next run", ex);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionScheduled(AuctionScheduledEvent event) {
+        auctionRepository.findById(event.getAuctionId()).ifPresent(a -> index.put(toDoc(a)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBidPlaced(BidPlacedEvent event) {
+        index.update(event.getAuctionId(), null, event.getPrice());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionFinalized(AuctionFinalizedEvent event) {
+        index.update(event.getAuctionId(), "FINISHED", null);
+    }
+
+    private static AuctionSearchIndex.Doc toDoc(Auction a) {
+        BigDecimal price = a.getCurrentPrice() != null ? a.getCurrentPrice() : a.getStartingPrice();
+        return new AuctionSearchIndex.Doc(a.getId(), a.getTitle(), a.getDescription(), a.getStatus(), price, a.getEndAt());
+    }
+
+    private List<String> bucketLabels() {
+        List<String> labels = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : priceBounds) {
+            labels.add(lower.toPlainString() + "-" + bound.toPlainString());
+            lower = bound;
+        }
+        labels.add(lower.toPlainString() + "+");
+        return labels;
+    }
+
+    private String bucketLabel(BigDecimal price) {
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : priceBounds) {
+            if (price.compareTo(bound) < 0) return lower.toPlainString() + "-" + bound.toPlainString();
+            lower = bound;
+        }
+        return lower.toPlainString() + "+";
+    }
+}
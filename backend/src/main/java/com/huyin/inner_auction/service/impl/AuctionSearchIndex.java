@@ -0,0 +1,210 @@
+package com.huyin.inner_auction.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index trong RAM trên title + description của auctions (dùng cho ô search).
+ *
+ * Vietnamese:
+ * - Tokenize: lowercase, bỏ dấu tiếng Việt (NFD, đ -> d), tách theo ký tự không phải chữ/số.
+ * - Mọi token của query phải khớp (AND); mỗi token khớp theo prefix (gõ tới đâu tìm tới đó).
+ * - Điểm: khớp trọn từ > khớp prefix, title nặng hơn description. Bằng điểm thì auction đang mở sắp kết thúc
+ *   trước, rồi giá thấp trước.
+ * - Thread-safe (ReadWriteLock); không đụng DB, AuctionSearchEngine nạp và cập nhật.
+ */
+final class AuctionSearchIndex {
+
+    static final double TITLE_EXACT = 3.0;
+    static final double TITLE_PREFIX = 2.0;
+    static final double DESCRIPTION_EXACT = 1.0;
+    static final double DESCRIPTION_PREFIX = 0.5;
+
+    /**
+     * Indexed fields of one auction.
+     */
+    @Getter
+    @AllArgsConstructor
+    static class Doc {
+        private final UUID id;
+        private final String title;
+        private final String description;
+        private final String status;
+        private final BigDecimal currentPrice;
+        private final Instant endAt;
+
+        Doc withStatus(String newStatus) {
+            return new Doc(id, title, description, newStatus, currentPrice, endAt);
+        }
+
+        Doc withPrice(BigDecimal newPrice) {
+            return new Doc(id, title, description, status, newPrice, endAt);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Match {
+        private final Doc doc;
+        private final double score;
+    }
+
+    private static final class Indexed {
+        final Doc doc;
+        final Set<String> titleTokens;
+        final Set<String> descriptionTokens;
+
+        Indexed(Doc doc) {
+            this.doc = doc;
+            this.titleTokens = new HashSet<>(tokenize(doc.getTitle()));
+            this.descriptionTokens = new HashSet<>(tokenize(doc.getDescription()));
+        }
+    }
+
+    private final Map<UUID, Indexed> docs = new HashMap<>();
+    // token -> auctions containing it (title or description); sorted for prefix range scans
+    private final NavigableMap<String, Set<UUID>> postings = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        String folded = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .replace('đ', 'd');
+        List<String> tokens = new ArrayList<>();
+        for (String t : folded.split("[^\\p{L}\\p{N}]+")) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return tokens;
+    }
+
+    void put(Doc doc) {
+        Indexed next = new Indexed(doc);
+        lock.writeLock().lock();
+        try {
+            Indexed prev = docs.put(doc.getId(), next);
+            if (prev != null) unlink(prev);
+            for (String token : next.titleTokens) postings.computeIfAbsent(token, k -> new HashSet<>()).add(doc.getId());
+            for (String token : next.descriptionTokens) postings.computeIfAbsent(token, k -> new HashSet<>()).add(doc.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace status / price of an indexed auction without re-tokenizing; no-op if it is not indexed.
+     */
+    void update(UUID id, String status, BigDecimal price) {
+        lock.writeLock().lock();
+        try {
+            Indexed cur = docs.get(id);
+            if (cur == null) return;
+            Doc doc = cur.doc;
+            if (status != null) doc = doc.withStatus(status);
+            if (price != null) doc = doc.withPrice(price);
+            docs.put(id, new Indexed(doc));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Indexed prev = docs.remove(id);
+            if (prev != null) unlink(prev);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All matches of {@code query} (optionally only {@code status}), ranked. Empty query matches nothing.
+     */
+    List<Match> search(String query, String status, Instant now) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return List.of();
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<UUID> candidates = null;
+            for (String term : terms) {
+                Set<UUID> ids = new HashSet<>();
+                for (Set<UUID> posting : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                    ids.addAll(posting);
+                }
+                if (candidates == null) candidates = ids;
+                else candidates.retainAll(ids);
+                if (candidates.isEmpty()) return List.of();
+            }
+            for (UUID id : candidates) {
+                Indexed indexed = docs.get(id);
+                if (status != null && !status.equalsIgnoreCase(indexed.doc.getStatus())) continue;
+                double score = 0;
+                for (String term : terms) score += termScore(indexed, term);
+                matches.add(new Match(indexed.doc, score));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(ranking(now));
+        return matches;
+    }
+
+    private static double termScore(Indexed indexed, String term) {
+        if (indexed.titleTokens.contains(term)) return TITLE_EXACT;
+        if (hasPrefix(indexed.titleTokens, term)) return TITLE_PREFIX;
+        if (indexed.descriptionTokens.contains(term)) return DESCRIPTION_EXACT;
+        return DESCRIPTION_PREFIX; // matched by prefix in the description
+    }
+
+    private static boolean hasPrefix(Set<String> tokens, String prefix) {
+        for (String t : tokens) {
+            if (t.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    // score desc, then open auctions ending soonest, then lowest price
+    private static Comparator<Match> ranking(Instant now) {
+        return Comparator.comparingDouble(Match::getScore).reversed()
+                .thenComparing(m -> endingKey(m.getDoc(), now))
+                .thenComparing(m -> m.getDoc().getCurrentPrice(), Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static long endingKey(Doc doc, Instant now) {
+        Instant end = doc.getEndAt();
+        if (end == null || end.isBefore(now)) return Long.MAX_VALUE; // ended / no end: after all open auctions
+        return end.toEpochMilli();
+    }
+
+    // caller holds the write lock
+    private void unlink(Indexed indexed) {
+        for (String token : indexed.titleTokens) unlinkToken(token, indexed.doc.getId());
+        for (String token : indexed.descriptionTokens) unlinkToken(token, indexed.doc.getId());
+    }
+
+    private void unlinkToken(String token, UUID id) {
+        Set<UUID> ids = postings.get(token);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) postings.remove(token);
+    }
+}
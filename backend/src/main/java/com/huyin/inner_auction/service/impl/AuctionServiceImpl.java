@@ -4,10 +4,13 @@ import com.huyin.inner_auction.dto.AuctionDto;
 import com.huyin.inner_auction.dto.AuctionSummaryDto;
 import com.huyin.inner_auction.dto.NextBidDto;
 import com.huyin.inner_auction.dto.CreateAuctionRequest;
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.entity.Auction;
 import com.huyin.inner_auction.entity.AuctionImage;
 import com.huyin.inner_auction.entity.Bid;
 import com.huyin.inner_auction.entity.User;
+import com.huyin.inner_auction.event.AuctionScheduledEvent;
+import com.huyin.inner_auction.projection.AuctionSummaryView;
 import com.huyin.inner_auction.projection.AuctionWithImageView;
 import com.huyin.inner_auction.repository.AuctionImageRepository;
 import com.huyin.inner_auction.repository.AuctionRepository;
@@ -16,6 +19,7 @@ import com.huyin.inner_auction.repository.UserRepository;
 import com.huyin.inner_auction.service.AuctionService;
 import com.huyin.inner_auction.service.WalletService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,28 +43,72 @@ public class AuctionServiceImpl implements AuctionService {
     private final BidRepository bidRepository;
     private final WalletService walletService; // optional, used for balance checks
     private final UserRepository userRepository;
+    private final BidHistoryBuffer bidHistoryBuffer;
+    private final AuctionReadCache auctionReadCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public AuctionServiceImpl(AuctionRepository auctionRepository,
                               AuctionImageRepository auctionImageRepository,
                               BidRepository bidRepository,
                               WalletService walletService,
-                              UserRepository userRepository) {
+                              UserRepository userRepository,
+                              BidHistoryBuffer bidHistoryBuffer,
+                              AuctionReadCache auctionReadCache,
+                              ApplicationEventPublisher eventPublisher) {
         this.auctionRepository = auctionRepository;
         this.auctionImageRepository = auctionImageRepository;
         this.bidRepository = bidRepository;
         this.walletService = walletService;
         this.userRepository = userRepository;
+        this.bidHistoryBuffer = bidHistoryBuffer;
+        this.auctionReadCache = auctionReadCache;
+        this.eventPublisher = eventPublisher;
     }
 
 
     @Override
     public Page<AuctionDto> listAuctions(String status, String q, Pageable pageable) {
-        // Ignore status / q parameters and return all auctions via repository.findAll(pageable)
-        Page<Auction> page = auctionRepository.findAll(pageable);
+        // One query per filter combination (no ":x IS NULL OR ..." predicates), so each can use its index:
+        // idx_auctions_status for status, the pg_trgm GIN indexes for q (already an ILIKE pattern, e.g. "%lamp%").
+        String statusParam = (status == null || status.isBlank()) ? null : status.trim().toUpperCase();
+        Page<Auction> page;
+        if (statusParam != null && q != null) {
+            page = auctionRepository.findByStatusAndText(statusParam, q, pageable);
+        } else if (q != null) {
+            page = auctionRepository.findByText(q, pageable);
+        } else if (statusParam != null) {
+            page = auctionRepository.findByStatus(statusParam, pageable);
+        } else {
+            page = auctionRepository.findAll(pageable);
+        }
+
+        List<AuctionDto> dtos = toDtos(page.getContent());
+        return new PageImpl<>(dtos, page.getPageable(), page.getTotalElements());
+    }
 
-        // batch load images for auctions in the page
-        List<UUID> auctionIds = page.getContent().stream()
+    @Override
+    public CursorPageDto<AuctionDto> listAuctionsByCursor(String status, String q, String cursor, Integer limit) {
+        String statusParam = (status == null || status.isBlank()) ? null : status.trim().toUpperCase();
+        PageCursor after = PageCursor.decode(cursor);
+        int size = PageCursor.clampLimit(limit, 20);
+        // one extra row tells whether there is a next page
+        List<Auction> rows;
+        if (statusParam != null && q != null) {
+            rows = auctionRepository.findPageByStatusAndText(statusParam, q, after.getCreatedAt(), after.getId(), size + 1);
+        } else if (q != null) {
+            rows = auctionRepository.findPageByText(q, after.getCreatedAt(), after.getId(), size + 1);
+        } else if (statusParam != null) {
+            rows = auctionRepository.findPageByStatus(statusParam, after.getCreatedAt(), after.getId(), size + 1);
+        } else {
+            rows = auctionRepository.findPage(after.getCreatedAt(), after.getId(), size + 1);
+        }
+        return PageCursor.page(rows, size, Auction::getCreatedAt, Auction::getId, this::toDtos);
+    }
+
+    // Map a page of auctions to DTOs, loading the images of the whole page in one query.
+    private List<AuctionDto> toDtos(List<Auction> auctions) {
+        List<UUID> auctionIds = auctions.stream()
                 .map(Auction::getId)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
@@ -74,7 +122,7 @@ public class AuctionServiceImpl implements AuctionService {
             }
         }
 
-        Page<AuctionDto> dtoPage = page.map(entity -> {
+        return auctions.stream().map(entity -> {
             AuctionDto dto = AuctionDto.builder().build();
             dto.setId(entity.getId());
             dto.setSellerId(entity.getSellerId());
@@ -99,79 +147,75 @@ public class AuctionServiceImpl implements AuctionService {
             }
 
             return dto;
-        });
-
-        return dtoPage;
+        }).collect(Collectors.toList());
     }
 
     @Override
     public AuctionDto getAuctionById(UUID id) {
-        Optional<Auction> opt = auctionRepository.findById(id);
-        if (opt.isEmpty()) return null;
-        Auction a = opt.get();
-
-        AuctionDto dto = AuctionDto.builder().build();
-        dto.setId(a.getId());
-
-        // entity now exposes sellerId directly
-        dto.setSellerId(a.getSellerId());
-
-        dto.setTitle(a.getTitle());
-        dto.setDescription(a.getDescription());
-        dto.setStartingPrice(a.getStartingPrice());
-        dto.setCurrentPrice(a.getCurrentPrice());
-        dto.setMinIncrement(a.getMinIncrement());
-        dto.setReservePrice(a.getReservePrice());
-        dto.setStatus(a.getStatus());
-
-        // convert Instant -> OffsetDateTime (if Instant present)
-        dto.setStartAt(a.getStartAt() == null ? null : OffsetDateTime.ofInstant(a.getStartAt(), ZoneOffset.UTC));
-        dto.setEndAt(a.getEndAt() == null ? null : OffsetDateTime.ofInstant(a.getEndAt(), ZoneOffset.UTC));
-        dto.setCreatedAt(a.getCreatedAt() == null ? null : OffsetDateTime.ofInstant(a.getCreatedAt(), ZoneOffset.UTC));
-
-        // Load images (uses AuctionImage entity and repo)
-        List<AuctionImage> imgs = auctionImageRepository.findByAuctionIdOrderByOrderIndexAsc(a.getId());
-        if (imgs != null && !imgs.isEmpty()) {
-            dto.setImageUrl(imgs.get(0).getUrl());
-            dto.setImages(imgs.stream().map(AuctionImage::getUrl).collect(Collectors.toList()));
-        } else {
-            dto.setImages(java.util.Collections.emptyList());
-        }
+        return auctionReadCache.get(id).map(AuctionReadCache.View::toDto).orElse(null);
+    }
 
-        return dto;
+    @Override
+    public AuctionDto getAuctionById(UUID id, long minVersion) {
+        return auctionReadCache.get(id, minVersion).map(AuctionReadCache.View::toDto).orElse(null);
     }
 
 
     @Override
     public AuctionSummaryDto getAuctionSummary(UUID id) {
-        Optional<Auction> opt = auctionRepository.findById(id);
-        if (opt.isEmpty()) return null;
-        Auction a = opt.get();
-        return AuctionSummaryDto.builder()
-                .id(a.getId())
-                .currentPrice(a.getCurrentPrice())
-                .minIncrement(a.getMinIncrement())
-                .endAt(a.getEndAt() == null ? null : OffsetDateTime.ofInstant(a.getEndAt(), ZoneOffset.UTC))
-                .status(a.getStatus())
-                .build();
+        return auctionReadCache.get(id).map(AuctionReadCache.View::toSummary).orElse(null);
+    }
+
+
+    /**
+     * Summaries for a grid of auctions, in request order (unknown ids are skipped): cached read models first,
+     * the rest in one "WHERE id = ANY(:ids)" query.
+     */
+    @Override
+    public List<AuctionSummaryDto> getAuctionSummaries(List<UUID> ids) {
+        List<UUID> unique = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<UUID, AuctionSummaryDto> found = new HashMap<>();
+        List<UUID> misses = new ArrayList<>();
+        for (UUID id : unique) {
+            Optional<AuctionReadCache.View> cached = auctionReadCache.peek(id);
+            if (cached.isPresent()) found.put(id, cached.get().toSummary());
+            else misses.add(id);
+        }
+        if (!misses.isEmpty()) {
+            for (AuctionSummaryView v : auctionRepository.findSummariesByIds(misses.toArray(new UUID[0]))) {
+                found.put(v.getId(), AuctionSummaryDto.builder()
+                        .id(v.getId())
+                        .currentPrice(v.getCurrentPrice())
+                        .minIncrement(v.getMinIncrement())
+                        .endAt(v.getEndAt() == null ? null : v.getEndAt().atOffset(ZoneOffset.UTC))
+                        .status(v.getStatus())
+                        .build());
+            }
+        }
+        List<AuctionSummaryDto> result = new ArrayList<>(found.size());
+        for (UUID id : unique) {
+            AuctionSummaryDto s = found.get(id);
+            if (s != null) result.add(s);
+        }
+        return result;
     }
 
 
     @Override
     public NextBidDto getNextBid(UUID id, UUID userId) {
-        Optional<Auction> opt = auctionRepository.findById(id);
+        Optional<AuctionReadCache.View> opt = auctionReadCache.get(id);
         if (opt.isEmpty()) {
             return NextBidDto.builder().canBid(false).reason("auction_not_found").build();
         }
-        Auction a = opt.get();
-        BigDecimal base = a.getCurrentPrice() != null ? a.getCurrentPrice() : a.getStartingPrice();
-        BigDecimal nextMin = (base == null ? BigDecimal.ZERO : base).add(a.getMinIncrement() == null ? BigDecimal.valueOf(1) : a.getMinIncrement());
+        AuctionReadCache.View a = opt.get();
+        BigDecimal base = a.currentPrice != null ? a.currentPrice : a.startingPrice;
+        BigDecimal nextMin = (base == null ? BigDecimal.ZERO : base).add(a.minIncrement == null ? BigDecimal.valueOf(1) : a.minIncrement);
         boolean canBid = true;
         String reason = null;
         BigDecimal userBalance = null;
 
         // check auction status
-        if (!"PUBLISHED".equalsIgnoreCase(a.getStatus()) && !"LIVE".equalsIgnoreCase(a.getStatus())) {
+        if (!"PUBLISHED".equalsIgnoreCase(a.status) && !"LIVE".equalsIgnoreCase(a.status)) {
             canBid = false;
             reason = "auction_closed";
         }
@@ -206,8 +250,25 @@ public class AuctionServiceImpl implements AuctionService {
     }
 
     @Override
-    public Page<Bid> listBidsForAuction(UUID auctionId, Pageable pageable) {
-        return bidRepository.findByAuctionIdOrderByCreatedAtDesc(auctionId, pageable);
+    public Page<Bid> listBidsForAuction(UUID auctionId, Pageable pageable, long minVersion) {
+        // page 0 of a live auction comes from the in-memory buffer; deeper pages from DB
+        return bidHistoryBuffer.firstPage(auctionId, pageable, minVersion)
+                .orElseGet(() -> bidRepository.findByAuctionIdOrderByCreatedAtDesc(auctionId, pageable));
+    }
+
+    @Override
+    public CursorPageDto<Bid> listBidsByCursor(UUID auctionId, String cursor, Integer limit, long minVersion) {
+        int size = PageCursor.clampLimit(limit, PageCursor.DEFAULT_LIMIT);
+        if (cursor == null || cursor.isBlank()) {
+            // first page of a live auction: same in-memory buffer as page 0 (size + 1 to detect a next page)
+            Optional<Page<Bid>> buffered = bidHistoryBuffer.firstPage(auctionId, PageRequest.of(0, size + 1), minVersion);
+            if (buffered.isPresent()) {
+                return PageCursor.page(buffered.get().getContent(), size, b -> b.getCreatedAt().toInstant(), Bid::getId, l -> l);
+            }
+        }
+        PageCursor after = PageCursor.decode(cursor);
+        List<Bid> rows = bidRepository.findPage(auctionId, after.getCreatedAtUtc(), after.getId(), size + 1);
+        return PageCursor.page(rows, size, b -> b.getCreatedAt().toInstant(), Bid::getId, l -> l);
     }
 
     /**
@@ -292,6 +353,7 @@ public class AuctionServiceImpl implements AuctionService {
 
         // Persist auction (will cascade images)
         Auction saved = auctionRepository.save(a);
+        eventPublisher.publishEvent(new AuctionScheduledEvent(saved.getId(), saved.getEndAt()));
 
         return saved;
     }
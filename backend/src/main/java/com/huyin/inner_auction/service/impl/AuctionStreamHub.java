@@ -0,0 +1,486 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.AuctionStreamEventDto;
+import com.huyin.inner_auction.entity.Auction;
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import com.huyin.inner_auction.projection.AuctionVersionView;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import com.huyin.inner_auction.repository.BidRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out giá live cho GET /api/auctions/{id}/stream (Server-Sent Events).
+ *
+ * Vietnamese:
+ * - Mỗi auction có một channel: snapshot hiện tại (giá, người dẫn đầu, endAt, số bid), sequence tăng dần
+ *   và N event gần nhất để replay khi client gửi Last-Event-ID.
+ * - Channel được đăng ký vào map TRƯỚC khi đọc snapshot từ DB: bid commit trong lúc đang đọc được giữ lại
+ *   (pending) rồi áp lên snapshot, bỏ trùng theo bid id (các bid id gần nhất được nạp cùng snapshot).
+ *   Sau đó channel cập nhật từ BidPlacedEvent (AFTER_COMMIT) của node này. Auction chưa có viewer thì bỏ qua event.
+ * - Bid commit trên replica khác không tạo event ở đây: mỗi app.auction.stream.sync-ms, các channel đang mở đọc
+ *   auctions.version (một query cho tất cả); version đổi thì đọc lại snapshot từ DB và gửi event nếu khác.
+ *   Độ trễ với bid từ node khác vì vậy tối đa khoảng sync-ms.
+ * - Mỗi client có hàng đợi riêng (tối đa app.auction.stream.client-queue event), được gửi trên pool
+ *   app.auction.stream.send-threads thread; client đọc chậm làm đầy hàng đợi thì bị đóng kết nối,
+ *   nên một client chậm không làm trễ các stream khác. Client mở lại với Last-Event-ID.
+ * - Finalize: gửi event cuối (status FINISHED), đóng các emitter và bỏ channel. Subscriber cuối rời đi thì
+ *   channel cũng bị bỏ (không poll DB cho auction không ai xem).
+ * - Event id là "<nodeId>.<sequence>": sequence chỉ sống trong process, nodeId sinh ngẫu nhiên lúc khởi động.
+ *   Last-Event-ID của node khác / trước restart, không đọc được hoặc quá cũ thì client nhận snapshot hiện tại.
+ */
+@Component
+@Slf4j
+public class AuctionStreamHub {
+
+    private static final String EVENT_NAME = "price";
+    // queued like an event, sent as an SSE comment
+    private static final AuctionStreamEventDto KEEP_ALIVE = new AuctionStreamEventDto();
+
+    private static final class Channel {
+        final UUID auctionId;
+        final Object loadLock = new Object();
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        final Deque<AuctionStreamEventDto> recent = new ArrayDeque<>();
+        // bids already counted in current, to drop events that the snapshot query already saw
+        final Set<UUID> seenBidIds = new LinkedHashSet<>();
+        // events committed while the snapshot was loading; null once current is set
+        List<BidPlacedEvent> pending = new ArrayList<>();
+        AuctionStreamEventDto current;
+        // auctions.version the last DB snapshot was read at
+        long dbVersion;
+
+        Channel(UUID auctionId) {
+            this.auctionId = auctionId;
+        }
+    }
+
+    /**
+     * One connected client: events are queued and written in order by at most one pool thread at a time.
+     */
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final Channel channel;
+        private final Deque<AuctionStreamEventDto> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean completeWhenDrained;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter, Channel channel) {
+            this.emitter = emitter;
+            this.channel = channel;
+        }
+
+        void enqueue(AuctionStreamEventDto event, boolean complete) {
+            boolean overflow;
+            synchronized (this) {
+                if (closed) return;
+                overflow = queue.size() >= clientQueueSize;
+                if (overflow) {
+                    closed = true;
+                    queue.clear();
+                } else {
+                    queue.addLast(event);
+                    completeWhenDrained |= complete;
+                    if (draining) return;
+                    draining = true;
+                }
+            }
+            if (overflow) {
+                log.debug("SSE client too slow for auction {}, closing", channel.auctionId);
+                close();
+                return;
+            }
+            sendPool.execute(this::drain);
+        }
+
+        // pool thread
+        private void drain() {
+            while (true) {
+                AuctionStreamEventDto next;
+                synchronized (this) {
+                    next = queue.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        if (completeWhenDrained && !closed) {
+                            closed = true;
+                            emitter.complete();
+                        }
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next == KEEP_ALIVE ? SseEmitter.event().comment("keep-alive") : toSse(next));
+                } catch (IOException | IllegalStateException ex) {
+                    log.debug("SSE send failed for auction {}: {}", channel.auctionId, ex.getMessage());
+                    synchronized (this) {
+                        closed = true;
+                        queue.clear();
+                        draining = false;
+                    }
+                    close();
+                    return;
+                }
+            }
+        }
+
+        synchronized boolean isIdle() {
+            return !closed && queue.isEmpty() && !draining;
+        }
+
+        void close() {
+            detach(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed
+            }
+        }
+    }
+
+    private final AuctionRepository auctionRepository;
+    private final BidRepository bidRepository;
+    private final BidWriter bidWriter;
+    private final long emitterTimeoutMs;
+    private final int replaySize;
+    private final int clientQueueSize;
+    // random per process: a Last-Event-ID from another replica or an earlier process is recognized as foreign
+    private final String nodeId = Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36);
+    private final Map<UUID, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService sendPool;
+
+    public AuctionStreamHub(AuctionRepository auctionRepository,
+                            BidRepository bidRepository,
+                            BidWriter bidWriter,
+                            @Value("${app.auction.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+                            @Value("${app.auction.stream.replay-size:100}") int replaySize,
+                            @Value("${app.auction.stream.client-queue:64}") int clientQueueSize,
+                            @Value("${app.auction.stream.send-threads:4}") int sendThreads) {
+        this.auctionRepository = auctionRepository;
+        this.bidRepository = bidRepository;
+        this.bidWriter = bidWriter;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.replaySize = Math.max(1, replaySize);
+        this.clientQueueSize = Math.max(1, clientQueueSize);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sendPool = Executors.newFixedThreadPool(Math.max(1, sendThreads), r -> {
+            Thread t = new Thread(r, "auction-stream-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open a stream for an auction; returns null if the auction does not exist.
+     * With a {@code lastEventId} issued by this process the events after it are replayed, otherwise the current
+     * snapshot is sent first.
+     */
+    public SseEmitter subscribe(UUID auctionId, String lastEventIdHeader) {
+        return subscribe(auctionId, parseEventId(lastEventIdHeader));
+    }
+
+    private SseEmitter subscribe(UUID auctionId, Long lastEventId) {
+        // registered before the snapshot is read, so bids committing meanwhile are queued on it (see ready)
+        Channel channel = channels.computeIfAbsent(auctionId, Channel::new);
+        try {
+            ready(channel);
+        } catch (IllegalStateException notFound) {
+            channels.remove(auctionId, channel);
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, channel);
+        if (!"PUBLISHED".equalsIgnoreCase(channel.current.getStatus())) {
+            // closed auction: one snapshot, no channel kept around
+            channels.remove(auctionId, channel);
+            subscriber.enqueue(channel.current, true);
+            return emitter;
+        }
+        emitter.onCompletion(() -> detach(subscriber));
+        emitter.onTimeout(() -> detach(subscriber));
+        emitter.onError(ex -> detach(subscriber));
+
+        // backlog and registration under the channel lock, so no event falls between them
+        synchronized (channel) {
+            if (channels.get(auctionId) != channel) {
+                // finalized or abandoned while the snapshot was loading: start over on a fresh channel
+                return subscribe(auctionId, lastEventId);
+            }
+            AuctionStreamEventDto current = channel.current;
+            AuctionStreamEventDto oldest = channel.recent.peekFirst();
+            boolean canReplay = lastEventId != null && lastEventId <= current.getSequence()
+                    && oldest != null && lastEventId >= oldest.getSequence() - 1;
+            if (canReplay) {
+                for (AuctionStreamEventDto e : channel.recent) {
+                    if (e.getSequence() > lastEventId) subscriber.enqueue(e, false);
+                }
+            } else if (lastEventId == null || lastEventId != current.getSequence()) {
+                subscriber.enqueue(current, false);
+            }
+            channel.subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBidPlaced(BidPlacedEvent event) {
+        Channel channel = channels.get(event.getAuctionId());
+        if (channel == null) return; // nobody watching
+        synchronized (channel) {
+            if (channel.pending != null) {
+                channel.pending.add(event);
+                return;
+            }
+            AuctionStreamEventDto next = apply(channel, event);
+            if (next == null) return;
+            broadcast(channel, next, false);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionFinalized(AuctionFinalizedEvent event) {
+        Channel channel = channels.remove(event.getAuctionId());
+        if (channel == null) return;
+        String status = auctionRepository.findById(event.getAuctionId()).map(Auction::getStatus).orElse("FINISHED");
+        synchronized (channel) {
+            AuctionStreamEventDto prev = channel.current;
+            if (prev == null) return; // snapshot still loading: it will read the final status itself
+            AuctionStreamEventDto last = prev.toBuilder().sequence(prev.getSequence() + 1).status(status).build();
+            push(channel, last);
+            broadcast(channel, last, true);
+        }
+    }
+
+    /**
+     * Pick up bids and status changes committed on other replicas: one version query for every open channel,
+     * then a snapshot reload for those whose auctions.version moved.
+     */
+    @Scheduled(fixedDelayString = "${app.auction.stream.sync-ms:2000}")
+    public void syncWithDatabase() {
+        List<Channel> open = new ArrayList<>();
+        for (Channel channel : channels.values()) {
+            synchronized (channel) {
+                if (channel.current != null && !channel.subscribers.isEmpty()) open.add(channel);
+            }
+        }
+        if (open.isEmpty()) return;
+        try {
+            UUID[] ids = open.stream().map(c -> c.auctionId).toArray(UUID[]::new);
+            Map<UUID, Long> versions = new HashMap<>();
+            for (AuctionVersionView v : auctionRepository.findVersionsByIds(ids)) versions.put(v.getId(), v.getVersion());
+            for (Channel channel : open) {
+                Long version = versions.get(channel.auctionId);
+                if (version != null && version != channel.dbVersion) resync(channel);
+            }
+        } catch (Exception ex) {
+            log.warn("Stream sync with database failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * SSE comment every few seconds so proxies keep the connection open and dead clients get dropped.
+     */
+    @Scheduled(fixedDelayString = "${app.auction.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                // a client with events in flight does not need a keep-alive
+                if (subscriber.isIdle()) subscriber.enqueue(KEEP_ALIVE, false);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendPool.shutdownNow();
+        for (Channel channel : channels.values()) {
+            channel.subscribers.forEach(s -> s.emitter.complete());
+        }
+    }
+
+    // Loads the snapshot once per channel; events that arrived meanwhile are applied on top of it.
+    private void ready(Channel channel) {
+        synchronized (channel) {
+            if (channel.current != null) return;
+        }
+        // one loader per channel; the event listener only needs the channel lock, so it is not blocked by the query
+        synchronized (channel.loadLock) {
+            synchronized (channel) {
+                if (channel.current != null) return;
+            }
+            Snapshot snapshot = readSnapshot(channel.auctionId);
+            synchronized (channel) {
+                for (Bid bid : snapshot.recentBids) channel.seenBidIds.add(bid.getId());
+                channel.current = snapshot.event;
+                channel.dbVersion = snapshot.version;
+                for (BidPlacedEvent event : channel.pending) apply(channel, event);
+                channel.pending = null;
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        final AuctionStreamEventDto event;
+        final List<Bid> recentBids;
+        final long version;
+
+        Snapshot(AuctionStreamEventDto event, List<Bid> recentBids, long version) {
+            this.event = event;
+            this.recentBids = recentBids;
+            this.version = version;
+        }
+    }
+
+    private Snapshot readSnapshot(UUID auctionId) {
+        Auction auction = auctionRepository.findById(auctionId)
+                .orElseThrow(() -> new IllegalStateException("auction not found"));
+        Page<Bid> recentBids = bidRepository.findByAuctionIdOrderByCreatedAtDesc(auctionId, PageRequest.of(0, replaySize));
+        AuctionStreamEventDto event = AuctionStreamEventDto.builder()
+                .auctionId(auctionId)
+                .sequence(0)
+                .currentPrice(auction.getCurrentPrice() != null ? auction.getCurrentPrice() : auction.getStartingPrice())
+                .leaderUserId(bidWriter.findLeader(auctionId).getUserId())
+                .endAt(auction.getEndAt() == null ? null : OffsetDateTime.ofInstant(auction.getEndAt(), ZoneOffset.UTC))
+                .bidCount(recentBids.getTotalElements())
+                .status(auction.getStatus())
+                .build();
+        return new Snapshot(event, recentBids.getContent(), auction.getVersion() == null ? 0L : auction.getVersion());
+    }
+
+    // Re-read a channel from the database after its version moved (bids or finalization on another node).
+    private void resync(Channel channel) {
+        Snapshot snapshot;
+        try {
+            snapshot = readSnapshot(channel.auctionId);
+        } catch (IllegalStateException notFound) {
+            return;
+        }
+        synchronized (channel) {
+            AuctionStreamEventDto prev = channel.current;
+            // a local event applied after the read is newer than the snapshot: keep it, retry on the next sync
+            if (prev == null || snapshot.event.getBidCount() < prev.getBidCount()) return;
+            channel.dbVersion = snapshot.version;
+            for (Bid bid : snapshot.recentBids) channel.seenBidIds.add(bid.getId());
+            trimSeen(channel);
+            boolean finished = !"PUBLISHED".equalsIgnoreCase(snapshot.event.getStatus());
+            AuctionStreamEventDto next = snapshot.event.toBuilder().sequence(prev.getSequence() + 1).build();
+            if (!finished && sameState(prev, next)) return;
+            push(channel, next);
+            broadcast(channel, next, finished);
+            if (finished) channels.remove(channel.auctionId, channel);
+        }
+    }
+
+    private static boolean sameState(AuctionStreamEventDto a, AuctionStreamEventDto b) {
+        return a.getBidCount() == b.getBidCount()
+                && Objects.equals(a.getStatus(), b.getStatus())
+                && Objects.equals(a.getLeaderUserId(), b.getLeaderUserId())
+                && Objects.equals(a.getEndAt(), b.getEndAt())
+                && (a.getCurrentPrice() == null ? b.getCurrentPrice() == null
+                    : b.getCurrentPrice() != null && a.getCurrentPrice().compareTo(b.getCurrentPrice()) == 0);
+    }
+
+    // Remove a subscriber; the channel goes away with its last one (under the channel lock, see subscribe).
+    private void detach(Subscriber subscriber) {
+        Channel channel = subscriber.channel;
+        synchronized (channel) {
+            channel.subscribers.remove(subscriber);
+            if (channel.subscribers.isEmpty() && channel.current != null) channels.remove(channel.auctionId, channel);
+        }
+    }
+
+    // Local sequence of a Last-Event-ID issued by this process; null (send the snapshot) otherwise.
+    private Long parseEventId(String lastEventId) {
+        if (lastEventId == null) return null;
+        String id = lastEventId.trim();
+        int dot = id.lastIndexOf('.');
+        if (dot <= 0 || !id.substring(0, dot).equals(nodeId)) return null;
+        try {
+            return Long.parseLong(id.substring(dot + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    // caller holds the channel lock; returns null if every bid of the event is already counted
+    private AuctionStreamEventDto apply(Channel channel, BidPlacedEvent event) {
+        int fresh = 0;
+        for (Bid bid : event.getBids()) {
+            if (channel.seenBidIds.add(bid.getId())) fresh++;
+        }
+        trimSeen(channel);
+        if (fresh == 0) return null;
+
+        AuctionStreamEventDto prev = channel.current;
+        AuctionStreamEventDto.AuctionStreamEventDtoBuilder next = prev.toBuilder()
+                .sequence(prev.getSequence() + 1)
+                .bidCount(prev.getBidCount() + fresh);
+        BigDecimal price = event.getPrice();
+        if (price != null && (prev.getCurrentPrice() == null || price.compareTo(prev.getCurrentPrice()) >= 0)) {
+            next.currentPrice(price).leaderUserId(event.getLeaderUserId());
+        }
+        AuctionStreamEventDto built = next.build();
+        push(channel, built);
+        return built;
+    }
+
+    // caller holds the channel lock
+    private void trimSeen(Channel channel) {
+        while (channel.seenBidIds.size() > replaySize) {
+            channel.seenBidIds.remove(channel.seenBidIds.iterator().next());
+        }
+    }
+
+    // caller holds the channel lock
+    private void push(Channel channel, AuctionStreamEventDto event) {
+        channel.current = event;
+        channel.recent.addLast(event);
+        while (channel.recent.size() > replaySize) channel.recent.removeFirst();
+    }
+
+    // caller holds the channel lock, so every subscriber queues events in sequence order
+    private void broadcast(Channel channel, AuctionStreamEventDto event, boolean complete) {
+        for (Subscriber subscriber : channel.subscribers) {
+            subscriber.enqueue(event, complete);
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSse(AuctionStreamEventDto event) {
+        return SseEmitter.event()
+                .id(nodeId + "." + event.getSequence())
+                .name(EVENT_NAME)
+                .data(event);
+    }
+}
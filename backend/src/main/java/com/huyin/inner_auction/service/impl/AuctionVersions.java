@@ -0,0 +1,57 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.repository.AuctionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ETag cho GET /api/auctions/{id} và /{id}/bids, lấy từ cột auctions.version.
+ *
+ * Vietnamese:
+ * - auctions.version tăng ở mọi lần đổi giá (cả 4 bid engine, kể cả hàm place_bid) và mọi JPA update
+ *   (finalize, sửa auction), nên ETag đúng trên mọi node, không phụ thuộc event trong process.
+ * - Mỗi lần kiểm tra là một query theo primary key, chỉ đọc version (không load entity, không load ảnh).
+ * - Auction không tồn tại thì không có ETag: caller trả 404, không bao giờ 304 (kể cả If-None-Match: *).
+ * - Caller đọc version TRƯỚC, rồi yêu cầu dữ liệu có version >= version đó (AuctionReadCache, BidHistoryBuffer
+ *   nạp lại nếu bản trong RAM cũ hơn). Tag cũ đi với dữ liệu mới thì vô hại (lần sau chỉ trả 200); tag mới đi với
+ *   dữ liệu cũ thì client kẹt ở 304 với dữ liệu cũ, nên không được xảy ra.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuctionVersions {
+
+    private final AuctionRepository auctionRepository;
+
+    /**
+     * Committed auctions.version; empty if the auction does not exist.
+     */
+    public Optional<Long> current(UUID auctionId) {
+        return auctionRepository.findVersionById(auctionId);
+    }
+
+    /**
+     * Strong ETag (quoted) for one representation of the auction at {@code version}; {@code variant} tells
+     * representations apart. The body sent with it must be at least that version.
+     */
+    public static String etag(long version, String variant) {
+        return "\"" + version + "." + variant + "\"";
+    }
+
+    /**
+     * True if an If-None-Match header value lists {@code etag} (or is "*"). Weak validators compare equal too.
+     * Only call it for an existing auction.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
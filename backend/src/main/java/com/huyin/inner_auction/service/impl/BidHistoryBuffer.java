@@ -0,0 +1,152 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import com.huyin.inner_auction.repository.BidRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ring buffer N bid mới nhất cho mỗi auction đang mở, để trả page 0 của GET /api/auctions/{id}/bids từ RAM.
+ *
+ * Vietnamese:
+ * - Nạp lúc khởi động (các auction PUBLISHED) và khi có bid được commit (BidPlacedEvent, AFTER_COMMIT).
+ * - Ring giữ capacity + 1 bid: page đầu của cursor (limit mặc định = capacity) đọc thêm một dòng để biết còn
+ *   page sau hay không, vẫn trả từ RAM. Page > 0 hoặc size > capacity + 1: caller fallback xuống DB.
+ * - Evict khi auction được finalize (AuctionFinalizedEvent).
+ * - Event chỉ đến từ node này: bid commit trên node khác không vào ring. Vì vậy mỗi ring chỉ được dùng trong
+ *   app.bid.history.ttl-ms kể từ lần nạp từ DB; quá hạn thì request kế tiếp nạp lại (bid local không gia hạn TTL).
+ * - Ring nhớ auctions.version đọc ngay trước lần nạp. firstPage(..., minVersion) nạp lại nếu ring cũ hơn
+ *   version caller đã đọc (ETag), nên body không bao giờ cũ hơn ETag. Bid local không đổi version của ring.
+ * - Load và add cùng chạy trong ConcurrentHashMap.compute của key đó, nên một bid commit trong lúc đang load
+ *   không bị mất (trùng thì bỏ qua theo id).
+ */
+@Component
+@Slf4j
+public class BidHistoryBuffer {
+
+    // same order as the keyset queries (created_at DESC, id DESC in Postgres uuid order), so cursors line up
+    private static final Comparator<Bid> NEWEST_FIRST =
+            Comparator.comparing(Bid::getCreatedAt).reversed()
+                    .thenComparing((a, b) -> PageCursor.compareIds(b.getId(), a.getId()));
+
+    /**
+     * Newest-first list of at most {@code retained} bids, plus the total number of bids of the auction.
+     */
+    private static final class Ring {
+        final List<Bid> bids;
+        final long loadedAtMillis;
+        final long version; // auctions.version read before the bids: the ring holds at least that state
+        long total;
+
+        Ring(List<Bid> bids, long total, long loadedAtMillis, long version) {
+            this.bids = bids;
+            this.total = total;
+            this.loadedAtMillis = loadedAtMillis;
+            this.version = version;
+        }
+    }
+
+    private final BidRepository bidRepository;
+    private final AuctionRepository auctionRepository;
+    // buffer-size + 1: the extra row lets a cursor page of buffer-size detect a next page
+    private final int retained;
+    private final long ttlMillis;
+    private final Map<UUID, Ring> rings = new ConcurrentHashMap<>();
+
+    public BidHistoryBuffer(BidRepository bidRepository,
+                            AuctionRepository auctionRepository,
+                            @Value("${app.bid.history.buffer-size:50}") int capacity,
+                            @Value("${app.bid.history.ttl-ms:10000}") long ttlMillis) {
+        this.bidRepository = bidRepository;
+        this.auctionRepository = auctionRepository;
+        this.retained = Math.max(1, capacity) + 1;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Page 0 from memory if the auction is buffered and the page fits in the buffer (at most buffer-size + 1
+     * rows); empty otherwise. A ring loaded before auctions.version {@code minVersion} is reloaded first.
+     */
+    public Optional<Page<Bid>> firstPage(UUID auctionId, Pageable pageable, long minVersion) {
+        if (pageable.getPageNumber() != 0 || pageable.getPageSize() > retained) return Optional.empty();
+        Ring ring = rings.get(auctionId);
+        if (ring == null) return Optional.empty();
+        if (isStale(ring, minVersion)) {
+            // may be missing bids committed on other nodes: reload (only one caller does, inside compute)
+            ring = rings.computeIfPresent(auctionId, (id, current) -> isStale(current, minVersion) ? load(id) : current);
+            if (ring == null) return Optional.empty();
+        }
+        synchronized (ring) {
+            List<Bid> content = new ArrayList<>(ring.bids.subList(0, Math.min(pageable.getPageSize(), ring.bids.size())));
+            return Optional.of(new PageImpl<>(content, pageable, ring.total));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            List<UUID> open = auctionRepository.findOpenAuctionIds();
+            for (UUID auctionId : open) {
+                rings.computeIfAbsent(auctionId, this::load);
+            }
+            log.info("BidHistoryBuffer: preloaded {} open auctions", open.size());
+        } catch (Exception ex) {
+            log.error("BidHistoryBuffer: preload failed, will fill lazily", ex);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBidPlaced(BidPlacedEvent event) {
+        rings.compute(event.getAuctionId(), (auctionId, ring) -> {
+            // first bid since startup: load includes the committed rows
+            if (ring == null) return load(auctionId);
+            synchronized (ring) {
+                for (Bid bid : event.getBids()) {
+                    if (ring.bids.stream().anyMatch(b -> b.getId().equals(bid.getId()))) continue;
+                    ring.bids.add(bid);
+                    ring.total++;
+                }
+                ring.bids.sort(NEWEST_FIRST);
+                while (ring.bids.size() > retained) ring.bids.remove(ring.bids.size() - 1);
+            }
+            return ring;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionFinalized(AuctionFinalizedEvent event) {
+        rings.remove(event.getAuctionId());
+    }
+
+    private boolean isStale(Ring ring, long minVersion) {
+        return ring.version < minVersion || System.currentTimeMillis() - ring.loadedAtMillis > ttlMillis;
+    }
+
+    private Ring load(UUID auctionId) {
+        long version = auctionRepository.findVersionById(auctionId).orElse(0L);
+        Page<Bid> page = bidRepository.findByAuctionIdOrderByCreatedAtDesc(auctionId, PageRequest.of(0, retained));
+        List<Bid> recent = new ArrayList<>(page.getContent());
+        recent.sort(NEWEST_FIRST);
+        return new Ring(recent, page.getTotalElements(), System.currentTimeMillis(), version);
+    }
+}
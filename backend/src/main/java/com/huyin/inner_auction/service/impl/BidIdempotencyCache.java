@@ -0,0 +1,193 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.repository.BidRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Dedupe cho header Idempotency-Key của POST /api/auctions/{id}/bids.
+ *
+ * Vietnamese:
+ * - Bảng bid_idempotency_keys là nguồn đúng: reserve() ghi row (user, key) ở đầu transaction của bid, bind() gắn
+ *   bid id trước commit. Hai request cùng key (kể cả trên hai node) tranh nhau primary key: request sau chờ
+ *   request trước commit rồi nhận DuplicateRequestException và replay bid đã lưu. Crash giữa chừng thì cả bid
+ *   lẫn key cùng rollback.
+ * - Map trong RAM (LinkedHashMap theo thứ tự insert, giới hạn kích thước + TTL) chỉ là read-through cache cho
+ *   replay, và claim() giữ chỗ key trong lúc bid đang xử lý để retry đồng thời trên cùng node trả 409 sớm.
+ * - Key được scope theo user.
+ */
+@Component
+@Slf4j
+public class BidIdempotencyCache {
+
+    /**
+     * Outcome of {@link #claim}: either a stored bid to replay, or the caller now owns the key.
+     */
+    public static final class Claim {
+        private final Bid replay;
+
+        private Claim(Bid replay) {
+            this.replay = replay;
+        }
+
+        public Optional<Bid> getReplay() {
+            return Optional.ofNullable(replay);
+        }
+    }
+
+    /**
+     * Another request with the same (user, key) already committed its bid; the current transaction must roll back
+     * and the caller should replay the stored bid.
+     */
+    public static class DuplicateRequestException extends IllegalStateException {
+        public DuplicateRequestException() {
+            super("a request with this Idempotency-Key was already processed");
+        }
+    }
+
+    private static final class Entry {
+        final Bid bid; // null while the first request is still in flight
+        final long expiresAtMillis;
+
+        Entry(Bid bid, long expiresAtMillis) {
+            this.bid = bid;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BidRepository bidRepository;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public BidIdempotencyCache(JdbcTemplate jdbcTemplate,
+                               BidRepository bidRepository,
+                               @Value("${app.bid.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                               @Value("${app.bid.idempotency.max-entries:100000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bidRepository = bidRepository;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private static String cacheKey(UUID userId, String key) {
+        return userId + ":" + key;
+    }
+
+    /**
+     * Returns the stored bid for (user, key) if any; otherwise reserves the key for the caller, who must then
+     * call {@link #complete} or {@link #abandon}. Throws IllegalStateException while another request with
+     * the same key is still being processed.
+     */
+    public Claim claim(UUID userId, String key) {
+        String ck = cacheKey(userId, key);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry e = entries.get(ck);
+            if (e != null && e.expiresAtMillis > now) {
+                if (e.bid == null) throw new IllegalStateException("a request with this Idempotency-Key is in progress");
+                return new Claim(e.bid);
+            }
+            entries.put(ck, new Entry(null, now + ttlMillis));
+        }
+
+        Optional<Bid> stored;
+        try {
+            stored = findStored(userId, key);
+        } catch (RuntimeException ex) {
+            abandon(userId, key);
+            throw ex;
+        }
+        if (stored.isPresent()) {
+            remember(ck, stored.get());
+            return new Claim(stored.get());
+        }
+        return new Claim(null);
+    }
+
+    /**
+     * First statement of the bid transaction: takes the key row (reusing it only if it has expired). Blocks while a
+     * concurrent transaction holds the same key; throws {@link DuplicateRequestException} once that one committed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(UUID userId, String key) {
+        int taken = jdbcTemplate.update("INSERT INTO bid_idempotency_keys (user_id, idem_key, bid_id, created_at) " +
+                        "VALUES (?, ?, NULL, now()) ON CONFLICT (user_id, idem_key) " +
+                        "DO UPDATE SET bid_id = NULL, created_at = now() WHERE bid_idempotency_keys.created_at < ?",
+                userId, key, Timestamp.from(Instant.now().minusMillis(ttlMillis)));
+        if (taken == 0) throw new DuplicateRequestException();
+    }
+
+    /**
+     * Attach the written bid to the key reserved earlier in the same transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bind(UUID userId, String key, UUID bidId) {
+        jdbcTemplate.update("UPDATE bid_idempotency_keys SET bid_id = ? WHERE user_id = ? AND idem_key = ?",
+                bidId, userId, key);
+    }
+
+    /**
+     * Remember the committed bid for in-memory replay (the key row was written by the bid transaction).
+     */
+    public void complete(UUID userId, String key, Bid bid) {
+        remember(cacheKey(userId, key), bid);
+    }
+
+    /**
+     * Release the key after a failed request so the client may retry it.
+     */
+    public void abandon(UUID userId, String key) {
+        synchronized (entries) {
+            entries.remove(cacheKey(userId, key));
+        }
+    }
+
+    private void remember(String ck, Bid bid) {
+        synchronized (entries) {
+            entries.put(ck, new Entry(bid, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    private Optional<Bid> findStored(UUID userId, String key) {
+        List<UUID> ids = jdbcTemplate.queryForList(
+                "SELECT bid_id FROM bid_idempotency_keys WHERE user_id = ? AND idem_key = ? AND bid_id IS NOT NULL AND created_at > ?",
+                UUID.class, userId, key, Timestamp.from(Instant.now().minusMillis(ttlMillis)));
+        if (ids.isEmpty()) return Optional.empty();
+        return bidRepository.findById(ids.get(0));
+    }
+
+    @Scheduled(fixedDelayString = "${app.bid.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.values().removeIf(e -> e.expiresAtMillis <= now);
+        }
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM bid_idempotency_keys WHERE created_at < ?",
+                    Timestamp.from(Instant.now().minusMillis(ttlMillis)));
+            if (deleted > 0) log.debug("Purged {} expired idempotency keys", deleted);
+        } catch (Exception ex) {
+            log.error("Error purging idempotency keys", ex);
+        }
+    }
+}
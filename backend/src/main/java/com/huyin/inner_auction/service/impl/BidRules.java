@@ -0,0 +1,44 @@
+package com.huyin.inner_auction.service.impl;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Các rule kiểm tra bid dùng chung cho mọi engine (locking / sharded).
+ *
+ * Vietnamese: tách ra để engine in-memory kiểm tra trên state trong RAM giống hệt
+ * cách placeBid kiểm tra trên entity đã lock.
+ */
+final class BidRules {
+
+    private BidRules() {
+    }
+
+    /**
+     * Throws IllegalStateException if the auction is not accepting bids at {@code now}.
+     */
+    static void checkOpen(String status, Instant startAt, Instant endAt, Instant now) {
+        if (!"PUBLISHED".equalsIgnoreCase(status)) {
+            throw new IllegalStateException("auction not open for bidding");
+        }
+        // null-safe checks for start/end (entity uses Instant)
+        if ((startAt != null && startAt.isAfter(now)) || (endAt != null && endAt.isBefore(now))) {
+            throw new IllegalStateException("auction not active");
+        }
+    }
+
+    /**
+     * Minimum acceptable amount: (currentPrice or startingPrice) + minIncrement.
+     */
+    static BigDecimal requiredMinimum(BigDecimal currentPrice, BigDecimal startingPrice, BigDecimal minIncrement) {
+        BigDecimal current = currentPrice == null ? startingPrice : currentPrice;
+        return (current == null ? BigDecimal.ZERO : current)
+                .add(minIncrement == null ? BigDecimal.ONE : minIncrement);
+    }
+
+    static void checkAmount(BigDecimal amount, BigDecimal requiredMin) {
+        if (amount.compareTo(requiredMin) < 0) {
+            throw new IllegalArgumentException("bid too low; minimum is " + requiredMin);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.huyin.inner_auction.service.impl;
 
+import com.huyin.inner_auction.dto.ProxyBidResultDto;
 import com.huyin.inner_auction.entity.*;
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
 import com.huyin.inner_auction.repository.*;
 import com.huyin.inner_auction.service.BidService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,12 +15,10 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Service xử lý đặt giá và finalize auctions.
@@ -30,6 +31,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BidServiceImpl implements BidService {
 
+    // placeholder for an empty NOT IN (...) list
+    private static final UUID NO_AUCTION = new UUID(0L, 0L);
+
     private final EntityManager em;
     private final AuctionRepository auctionRepository;
     private final UserRepository userRepository;
@@ -41,19 +45,10 @@ public class BidServiceImpl implements BidService {
     private final PayoutRepository payoutRepository;
     private final CommissionLogsRepository commissionLogsRepository;
     private final PlatformBalanceRepository platformBalanceRepository;
-
-    // Helper: persist hold and force flush + refresh so we can reliably inspect DB state in same tx.
-    private Hold persistAndFlushHold(Hold h) {
-        Hold saved = holdRepository.save(h);
-        try {
-            em.flush();
-            try { em.refresh(saved); } catch (Throwable ignored) {}
-        } catch (Exception e) {
-            log.error("persistAndFlushHold failed for hold {}: {}", h.getId(), e.getMessage(), e);
-            throw e;
-        }
-        return saved;
-    }
+    private final BidWriter bidWriter;
+    private final BidIdempotencyCache idempotencyCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuctionFinalizationPool finalizationPool;
 
     // Helper: flush entity manager and log SQL execution (useful for debug)
     private void flushEm(String marker) {
@@ -69,10 +64,32 @@ public class BidServiceImpl implements BidService {
     /**
      * Place a bid.
      * IMPORTANT CHANGE: do NOT modify users.balance here. Only create/merge holds.
+     * The bid is resolved against the leader's proxy (if any), which may outbid it immediately.
      */
     @Override
     @Transactional
-    public Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount) {
+    public Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount, String idempotencyKey) {
+        if (idempotencyKey != null) idempotencyCache.reserve(userId, idempotencyKey);
+        Bid bid = place(userId, auctionId, amount, false).getBid();
+        if (idempotencyKey != null) idempotencyCache.bind(userId, idempotencyKey, bid.getId());
+        return bid;
+    }
+
+    @Override
+    @Transactional
+    public ProxyBidResultDto placeProxyBid(UUID userId, UUID auctionId, BigDecimal maxAmount) {
+        BidWriter.Placement placement = place(userId, auctionId, maxAmount, true);
+        // auction row is already locked and managed in this transaction
+        Auction auction = em.find(Auction.class, auctionId);
+        return ProxyBidResultDto.builder()
+                .auctionId(auctionId)
+                .maxAmount(maxAmount)
+                .currentPrice(auction.getCurrentPrice())
+                .leading(placement.getHold() != null)
+                .build();
+    }
+
+    private BidWriter.Placement place(UUID userId, UUID auctionId, BigDecimal amount, boolean proxy) {
         if (userId == null) throw new IllegalArgumentException("userId required");
         if (auctionId == null) throw new IllegalArgumentException("auctionId required");
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
@@ -83,274 +100,40 @@ public class BidServiceImpl implements BidService {
         Auction auction = em.find(Auction.class, auctionId, LockModeType.PESSIMISTIC_WRITE);
         if (auction == null) throw new IllegalStateException("auction not found");
 
-        Instant nowInstant = Instant.now();
-
-        if (!"PUBLISHED".equalsIgnoreCase(auction.getStatus())) {
-            throw new IllegalStateException("auction not open for bidding");
-        }
-        // null-safe checks for start/end (entity uses Instant)
-        Instant startAt = auction.getStartAt();
-        Instant endAt = auction.getEndAt();
-        if ((startAt != null && startAt.isAfter(nowInstant)) || (endAt != null && endAt.isBefore(nowInstant))) {
-            throw new IllegalStateException("auction not active");
-        }
-
-        BigDecimal current = auction.getCurrentPrice() == null ? auction.getStartingPrice() : auction.getCurrentPrice();
-        BigDecimal requiredMin = (current == null ? BigDecimal.ZERO : current)
-                .add(auction.getMinIncrement() == null ? BigDecimal.ONE : auction.getMinIncrement());
-        if (amount.compareTo(requiredMin) < 0) {
-            throw new IllegalArgumentException("bid too low; minimum is " + requiredMin);
-        }
-
-        // Lock user row (we may check balance for available, but won't change it now)
-        User user = em.find(User.class, userId, LockModeType.PESSIMISTIC_WRITE);
-        if (user == null) throw new IllegalStateException("user not found");
-
-        // Retrieve HELD holds for this user (across auctions)
-        List<Hold> heldByUserAll = holdRepository.findByUserIdAndStatus(userId, "HELD");
-
-        // Compute how much user already has held for THIS auction
-        BigDecimal userHeldForAuction = heldByUserAll.stream()
-                .filter(h -> auctionId.equals(h.getAuctionId()))
-                .map(h -> h.getAmount() == null ? BigDecimal.ZERO : h.getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BidRules.checkOpen(auction.getStatus(), auction.getStartAt(), auction.getEndAt(), Instant.now());
 
-        // Total held across auctions
-        BigDecimal totalHeld = heldByUserAll.stream()
-                .map(h -> h.getAmount() == null ? BigDecimal.ZERO : h.getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Current leader = the HELD hold on this auction (outbid holds are released), plus their proxy max if any.
+        BidWriter.Leader leader = bidWriter.findLeader(auctionId);
 
-        BigDecimal balance = user.getBalance() == null ? BigDecimal.ZERO : user.getBalance();
+        ProxyBidResolver.Outcome outcome = ProxyBidResolver.resolve(
+                auction.getCurrentPrice(), auction.getStartingPrice(), auction.getMinIncrement(),
+                leader.getUserId(), leader.getProxyMax(), userId, amount, proxy);
 
-        // Now available is balance - (totalHeld - userHeldForAuction)
-        // Explanation: balance is NOT reduced by holds in this model, so we subtract other holds.
-        BigDecimal available = balance.subtract(totalHeld.subtract(userHeldForAuction));
-
-        // Additional amount needed on top of user's existing hold for this auction
-        BigDecimal additional = amount.subtract(userHeldForAuction);
-        if (additional.compareTo(BigDecimal.ZERO) < 0) additional = BigDecimal.ZERO;
-
-        log.debug("placeBid start: user={} auction={} amount={} balance={} userHeldForAuction={} totalHeld={} available={} additional={}",
-                userId, auctionId, amount, balance, userHeldForAuction, totalHeld, available, additional);
-
-        if (available.compareTo(additional) < 0) {
-            throw new IllegalStateException("insufficient funds");
-        }
-
-        // Find previous top hold (exclude current user) BEFORE we modify/create the user's hold.
-        Optional<Hold> prevTopBeforeOpt = holdRepository
-                .findTopByAuctionIdAndStatusAndUserIdNotOrderByAmountDescCreatedAtDesc(auctionId, "HELD", userId);
-
-        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-
-        // Create Bid history record (kept)
-        Bid bid = Bid.builder()
-                .id(UUID.randomUUID())
-                .auctionId(auctionId)
-                .userId(userId)
-                .amount(amount)
-                .createdAt(now)
-                .build();
-        bidRepository.save(bid);
-        flushEm("after-bid-save");
-
-        // Merge existing holds for this user+auction if multiple exist
-        List<Hold> holdsForUserAuction = heldByUserAll.stream()
-                .filter(h -> auctionId.equals(h.getAuctionId()))
-                .sorted((h1, h2) -> h2.getCreatedAt().compareTo(h1.getCreatedAt()))
-                .collect(Collectors.toList());
-
-        Hold userHold = null;
-        if (holdsForUserAuction.size() > 1) {
-            // Merge: sum amounts, keep newest
-            BigDecimal sumAmount = holdsForUserAuction.stream()
-                    .map(h -> h.getAmount() == null ? BigDecimal.ZERO : h.getAmount())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            Hold newest = holdsForUserAuction.get(0);
-            newest.setAmount(sumAmount);
-            newest.setStatus("HELD");
-            newest.setUpdatedAt(now);
-            newest = persistAndFlushHold(newest);
-
-            // delete older holds
-            for (int i = 1; i < holdsForUserAuction.size(); i++) {
-                Hold old = holdsForUserAuction.get(i);
-                try {
-                    holdRepository.delete(old);
-                    flushEm("deleted-old-hold-" + old.getId());
-                } catch (Throwable ex) {
-                    log.warn("Failed to delete duplicate hold {}: {}", old.getId(), ex.getMessage());
-                }
-            }
-            userHold = newest;
-        } else if (holdsForUserAuction.size() == 1) {
-            userHold = holdsForUserAuction.get(0);
-        }
-
-        // Now increase existing hold or create a new hold
-        if (userHold != null) {
-            if (additional.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal prevAmount = userHold.getAmount() == null ? BigDecimal.ZERO : userHold.getAmount();
-                userHold.setAmount(prevAmount.add(additional));
-                userHold.setStatus("HELD");
-                userHold.setUpdatedAt(now);
-                userHold = persistAndFlushHold(userHold);
-
-                // IMPORTANT: do NOT deduct user.balance here.
-                // Just create EscrowEntry/Transaction records to show hold; balance remains unchanged until finalize.
-
-                EscrowEntry holdEntry = EscrowEntry.builder()
-                        .id(UUID.randomUUID())
-                        .saleId(null)
-                        .userId(userId)
-                        .amount(additional)
-                        .type("HOLD")
-                        .relatedEntity("HOLD")
-                        .referenceId(userHold.getId())
-                        .createdAt(now)
-                        .build();
-                escrowEntryRepository.save(holdEntry);
-
-                Transaction holdTx = Transaction.builder()
-                        .id(UUID.randomUUID())
-                        .userId(userId)
-                        .type(TransactionType.HOLD)
-                        .amount(additional)
-                        .referenceId(userHold.getId())
-                        .relatedEntity("HOLD")
-                        .status("COMPLETED")
-                        .createdAt(now)
-                        .direction("OUT") // logical OUT for hold, but balance not physically changed yet
-                        .description("Hold additional for increased bid")
-                        .build();
-                transactionRepository.save(holdTx);
-
-                log.debug("Increased userHold {} by {} for user {}", userHold.getId(), additional, userId);
-            } else {
-                // no additional required - ensure hold stays HELD and updatedAt set
-                userHold.setStatus("HELD");
-                userHold.setUpdatedAt(now);
-                userHold = persistAndFlushHold(userHold);
-                log.debug("User re-bid without additional amount; existing hold {} unchanged", userHold.getId());
-            }
-        } else {
-            // create a new hold for the bidder with the full amount
-            userHold = Hold.builder()
-                    .id(UUID.randomUUID())
-                    .userId(userId)
-                    .auctionId(auctionId)
-                    .amount(amount)
-                    .status("HELD")
-                    .createdAt(now)
-                    .build();
-            userHold = persistAndFlushHold(userHold);
-
-            // Do not deduct user.balance here; create EscrowEntry/Transaction to represent hold.
-            EscrowEntry holdEntry = EscrowEntry.builder()
-                    .id(UUID.randomUUID())
-                    .saleId(null)
-                    .userId(userId)
-                    .amount(amount)
-                    .type("HOLD")
-                    .relatedEntity("HOLD")
-                    .referenceId(userHold.getId())
-                    .createdAt(now)
-                    .build();
-            escrowEntryRepository.save(holdEntry);
-
-            Transaction holdTx = Transaction.builder()
-                    .id(UUID.randomUUID())
-                    .userId(userId)
-                    .type(TransactionType.HOLD)
-                    .amount(amount)
-                    .referenceId(userHold.getId())
-                    .relatedEntity("HOLD")
-                    .status("COMPLETED")
-                    .createdAt(now)
-                    .direction("OUT")
-                    .description("Hold for bid")
-                    .build();
-            transactionRepository.save(holdTx);
-
-            log.debug("Created new hold {} amount={} for user {}", userHold.getId(), amount, userId);
-        }
-
-        // At this point userHold persisted. Now release/refund previous top (if any)
-        if (prevTopBeforeOpt.isPresent()) {
-            Hold prev = prevTopBeforeOpt.get();
-            // reload prev from DB to ensure current state (and lock its user)
-            Hold prevFromDb = holdRepository.findById(prev.getId()).orElse(null);
-            if (prevFromDb != null && !"RELEASED".equalsIgnoreCase(prevFromDb.getStatus())
-                    && !prevFromDb.getUserId().equals(userId)) {
-                // Only mark prev RELEASED — do NOT refund user.balance since balance was not deducted at hold time.
-                prevFromDb.setStatus("RELEASED");
-                prevFromDb.setReleasedAt(now);
-                prevFromDb = holdRepository.save(prevFromDb);
-                flushEm("after-prev-release-" + prevFromDb.getId());
-
-                // Create escrow REFUND entry and RELEASE transaction for bookkeeping, but DO NOT change user.balance.
-                User prevUser = em.find(User.class, prevFromDb.getUserId(), LockModeType.PESSIMISTIC_WRITE);
-                // NOTE: do NOT update prevUser.balance
-
-                EscrowEntry refundEntry = EscrowEntry.builder()
-                        .id(UUID.randomUUID())
-                        .saleId(null)
-                        .userId(prevUser.getId())
-                        .amount(prevFromDb.getAmount())
-                        .type("REFUND")
-                        .relatedEntity("HOLD")
-                        .referenceId(prevFromDb.getId())
-                        .createdAt(now)
-                        .build();
-                escrowEntryRepository.save(refundEntry);
-
-                Transaction relTx = Transaction.builder()
-                        .id(UUID.randomUUID())
-                        .userId(prevUser.getId())
-                        .type(TransactionType.RELEASE)
-                        .amount(prevFromDb.getAmount())
-                        .referenceId(prevFromDb.getId())
-                        .relatedEntity("HOLD")
-                        .status("COMPLETED")
-                        .createdAt(now)
-                        .direction("IN")
-                        .description("Hold released due to being outbid (no balance was charged at hold time)")
-                        .build();
-                transactionRepository.save(relTx);
-
-                log.info("Released previous hold {} (user {}) amount={} — no balance refunded because hold didn't deduct balance",
-                        prevFromDb.getId(), prevUser.getId(), prevFromDb.getAmount());
-            } else {
-                log.debug("Previous top hold {} not present or already released or belongs to current user - skip release",
-                        prevTopBeforeOpt.map(Hold::getId).orElse(null));
-            }
-        }
+        BidWriter.Placement placement = bidWriter.apply(auctionId, outcome, leader.getHoldId());
 
         // Update auction current price
-        auction.setCurrentPrice(amount);
+        auction.setCurrentPrice(outcome.getPrice());
         auctionRepository.save(auction);
         flushEm("after-auction-update");
 
-        log.info("Bid placed: auction={} user={} amount={} (additional held={})", auctionId, userId, amount, additional);
-        return bid;
+        log.info("Bid placed: auction={} user={} amount={} proxy={} price={} leader={}",
+                auctionId, userId, amount, proxy, outcome.getPrice(), outcome.getLeaderUserId());
+        return placement;
     }
 
     /**
      * Finalize auctions that have ended.
      * Now we will CHARGE the winner (deduct winner.balance) at finalize time.
+     * Auctions are claimed (SKIP LOCKED) and settled in parallel, each in its own transaction (AuctionFinalizationPool),
+     * so several nodes running the sweep share the work.
      */
     @Override
-    @Transactional
     public void finalizeEndedAuctions() {
-        OffsetDateTime now = OffsetDateTime.now();
-        List<Auction> ended = auctionRepository.findByEndAtBeforeAndSettledFalse(now);
-        for (Auction a : ended) {
-            try {
-                finalizeSingleAuction(a.getId());
-            } catch (Exception ex) {
-                log.error("Error finalizing auction {}", a.getId(), ex);
-            }
-        }
+        // workers claim ended auctions with SKIP LOCKED, one REQUIRES_NEW transaction each, with retry + dead letter
+        finalizationPool.drain(
+                excluded -> auctionRepository.claimNextEnded(excluded.isEmpty() ? List.of(NO_AUCTION) : excluded),
+                auctionId -> auctionRepository.claimUnsettled(auctionId) != null,
+                this::finalizeSingleAuction);
     }
 
     @Override
@@ -361,8 +144,19 @@ public class BidServiceImpl implements BidService {
 
     // extract finalization to single method to avoid duplication
     private void finalizeSingleAuction(UUID auctionId) {
+        if (settleAuction(auctionId)) {
+            eventPublisher.publishEvent(new AuctionFinalizedEvent(auctionId));
+        }
+    }
+
+    // returns false if there was nothing to do (missing, or already settled by the closer / sweep / admin)
+    private boolean settleAuction(UUID auctionId) {
         Auction auction = em.find(Auction.class, auctionId, LockModeType.PESSIMISTIC_WRITE);
-        if (auction == null) return;
+        if (auction == null) return false;
+        if (Boolean.TRUE.equals(auction.getSettled())) {
+            log.debug("Auction {} already settled", auctionId);
+            return false;
+        }
 
         Optional<Bid> topBidOpt = bidRepository.findTopByAuctionIdOrderByAmountDescCreatedAtDesc(auction.getId());
         if (topBidOpt.isEmpty()) {
@@ -370,7 +164,7 @@ public class BidServiceImpl implements BidService {
             auction.setSettled(true);
             auctionRepository.save(auction);
             log.info("Auction finished with no bids: {}", auction.getId());
-            return;
+            return true;
         }
 
         Bid topBid = topBidOpt.get();
@@ -378,9 +172,9 @@ public class BidServiceImpl implements BidService {
         BigDecimal finalPrice = topBid.getAmount();
         OffsetDateTime now = OffsetDateTime.now();
 
-        // Find winner hold (most recent HELD by winner on this auction)
-        Optional<Hold> winnerHoldOpt = holdRepository.findTopByAuctionIdAndStatusOrderByCreatedAtDesc(auction.getId(), "HELD")
-                .filter(h -> h.getUserId().equals(winnerId) && h.getAmount().compareTo(finalPrice) >= 0);
+        // Find winner hold (the single HELD hold of the winner on this auction)
+        Optional<Hold> winnerHoldOpt = holdRepository.findByUserIdAndAuctionIdAndStatus(winnerId, auction.getId(), "HELD")
+                .filter(h -> h.getAmount().compareTo(finalPrice) >= 0);
 
         if (winnerHoldOpt.isEmpty()) {
             // no matching hold; set finished and require manual review
@@ -390,7 +184,7 @@ public class BidServiceImpl implements BidService {
             auction.setFinalPrice(finalPrice);
             auctionRepository.save(auction);
             log.warn("No matching hold found for winner {} on auction {}; manual review needed", winnerId, auction.getId());
-            return;
+            return true;
         }
 
         Hold winnerHold = winnerHoldOpt.get();
@@ -408,7 +202,7 @@ public class BidServiceImpl implements BidService {
             auction.setFinalPrice(finalPrice);
             auctionRepository.save(auction);
             // Optionally notify admin / enqueue manual review
-            return;
+            return true;
         }
 
         // Deduct winner balance now
@@ -439,6 +233,7 @@ public class BidServiceImpl implements BidService {
         winnerHold.setStatus("USED");
         winnerHold.setReleasedAt(OffsetDateTime.now());
         holdRepository.save(winnerHold);
+        userRepository.releaseHeld(winnerId, winnerHold.getAmount());
 
         // Create escrow entry ESCROW_IN referencing sale (money moved from buyer into escrow)
         escrowEntryRepository.save(EscrowEntry.builder()
@@ -493,53 +288,14 @@ public class BidServiceImpl implements BidService {
                 .build();
         commissionLogsRepository.save(cl);
 
-        // Update platform balance (credit commission)
-        PlatformBalance pb = platformBalanceRepository.findAll().stream().findFirst().orElse(null);
-        if (pb != null) {
-            if (pb.getBalance() == null) pb.setBalance(BigDecimal.ZERO);
-            if (pb.getTotalCommission() == null) pb.setTotalCommission(BigDecimal.ZERO);
-            pb.setBalance(pb.getBalance().add(commissionAmount));
-            pb.setTotalCommission(pb.getTotalCommission().add(commissionAmount));
-            pb.setLastUpdated(OffsetDateTime.now());
-            platformBalanceRepository.save(pb);
-        }
+        // Credit platform commission: append-only delta, rolled into platform_balance by PlatformCommissionRollup
+        platformBalanceRepository.recordCommissionDelta(auction.getId(), commissionAmount);
 
-        // Release other held holds (they were never deducted so no refund of balance needed)
-        List<Hold> holds = holdRepository.findByAuctionIdOrderByCreatedAtDesc(auction.getId());
-        for (Hold h : holds) {
-            if (h.getId().equals(winnerHold.getId())) continue;
-            if (!"HELD".equalsIgnoreCase(h.getStatus())) continue;
-            h.setStatus("RELEASED");
-            h.setReleasedAt(OffsetDateTime.now());
-            holdRepository.save(h);
-
-            // Do NOT modify user balances here because we didn't deduct on hold creation.
-            // Create bookkeeping escrow & transaction entries for release.
-            escrowEntryRepository.save(EscrowEntry.builder()
-                    .id(UUID.randomUUID())
-                    .saleId(sale.getId())
-                    .userId(h.getUserId())
-                    .amount(h.getAmount())
-                    .type("REFUND")
-                    .relatedEntity("HOLD")
-                    .referenceId(h.getId())
-                    .createdAt(OffsetDateTime.now())
-                    .build());
-
-            Transaction relTx = Transaction.builder()
-                    .id(UUID.randomUUID())
-                    .userId(h.getUserId())
-                    .type(TransactionType.RELEASE)
-                    .amount(h.getAmount())
-                    .referenceId(h.getId())
-                    .relatedEntity("HOLD")
-                    .status("COMPLETED")
-                    .createdAt(OffsetDateTime.now())
-                    .direction("IN")
-                    .description("Hold released after auction finalized (no balance previously charged)")
-                    .build();
-            transactionRepository.save(relTx);
-        }
+        // Release other held holds (they were never deducted so no refund of balance needed).
+        // One statement: holds -> RELEASED, held_total given back, REFUND escrow + RELEASE transaction per hold.
+        int released = holdRepository.releaseLosingHolds(auction.getId(), winnerHold.getId(), sale.getId(),
+                "Hold released after auction finalized (no balance previously charged)", OffsetDateTime.now());
+        if (released > 0) log.debug("Released {} losing holds on auction {}", released, auction.getId());
 
         // Update auction record
         auction.setStatus("FINISHED");
@@ -550,5 +306,6 @@ public class BidServiceImpl implements BidService {
         auctionRepository.save(auction);
 
         log.info("Auction finalized: auction={} winner={} finalPrice={} saleId={}", auction.getId(), winnerId, finalPrice, sale.getId());
+        return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,228 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.entity.*;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import com.huyin.inner_auction.projection.HoldUpsertView;
+import com.huyin.inner_auction.repository.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ghi kết quả của một bid đã được chấp nhận: bid history, hold của bidder (upsert, một dòng HELD / user+auction),
+ * release hold của người dẫn đầu trước đó.
+ *
+ * Caller chịu trách nhiệm serialize các bid của cùng một auction (row lock trong
+ * BidServiceImpl, hoặc single-writer shard trong ShardedBidEngine) và đã resolve bid
+ * bằng ProxyBidResolver (kể cả kiểm tra giá tối thiểu) trước khi gọi.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BidWriter {
+
+    private final EntityManager em;
+    private final AuctionRepository auctionRepository;
+    private final BidRepository bidRepository;
+    private final HoldRepository holdRepository;
+    private final UserRepository userRepository;
+    private final ProxyBidRepository proxyBidRepository;
+    private final HoldLedger holdLedger;
+    private final BidIdempotencyCache idempotencyCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Result of a written bid: the bidder's Bid row (null when a leader only raised their proxy maximum)
+     * and the bidder's hold (null when the bidder is not leading).
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Placement {
+        private final Bid bid;
+        private final Hold hold;
+    }
+
+    /**
+     * Current leader of an auction: the HELD hold (outbid holds are released) and the leader's active proxy max.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Leader {
+        private final UUID userId;
+        private final UUID holdId;
+        private final BigDecimal proxyMax; // null if the leader has no active proxy
+
+        static final Leader NONE = new Leader(null, null, null);
+    }
+
+    public Leader findLeader(UUID auctionId) {
+        Hold hold = holdRepository.findTopByAuctionIdAndStatusOrderByAmountDescCreatedAtDesc(auctionId, "HELD").orElse(null);
+        if (hold == null) return Leader.NONE;
+        BigDecimal proxyMax = proxyBidRepository.findByAuctionIdAndUserIdAndStatus(auctionId, hold.getUserId(), "ACTIVE")
+                .map(ProxyBid::getMaxAmount)
+                .orElse(null);
+        return new Leader(hold.getUserId(), hold.getId(), proxyMax);
+    }
+
+    /**
+     * Thrown when the auction row no longer matches the in-memory state the bid was validated against
+     * (finalized, or price moved by someone else). The transaction is rolled back.
+     */
+    public static class StaleAuctionException extends IllegalStateException {
+        public StaleAuctionException(String message) {
+            super(message);
+        }
+    }
+
+    // The upsert bypasses the persistence context: refresh a Hold already loaded in this session,
+    // otherwise hand out a lazy reference (callers only need the id).
+    private Hold syncManagedHold(UUID holdId) {
+        Hold hold = em.getReference(Hold.class, holdId);
+        if (Hibernate.isInitialized(hold)) em.refresh(hold);
+        return hold;
+    }
+
+    /**
+     * Used by the sharded engine: writes the outcome without locking the auction row, then moves
+     * auctions.current_price from {@code expectedPrice} to the new price with a guarded UPDATE. If the guard
+     * does not match, the in-memory state was stale and the whole transaction is rolled back.
+     *
+     * @param idempotencyKey bidder's Idempotency-Key, reserved and bound inside this transaction; null if none
+     */
+    @Transactional
+    public Placement applyWithoutAuctionLock(UUID auctionId, ProxyBidResolver.Outcome outcome,
+                                             UUID previousLeaderHoldId, BigDecimal expectedPrice,
+                                             String idempotencyKey) {
+        if (idempotencyKey != null) idempotencyCache.reserve(outcome.getBidderId(), idempotencyKey);
+        Placement placement = apply(auctionId, outcome, previousLeaderHoldId);
+        int updated = auctionRepository.advanceCurrentPrice(auctionId, expectedPrice, outcome.getPrice());
+        if (updated == 0) {
+            throw new StaleAuctionException("auction state changed, please retry");
+        }
+        if (idempotencyKey != null && placement.getBid() != null) {
+            idempotencyCache.bind(outcome.getBidderId(), idempotencyKey, placement.getBid().getId());
+        }
+        return placement;
+    }
+
+    /**
+     * Write a resolved bid: bid rows (manual + automatic proxy raises), the leader's hold and proxy rows,
+     * and release the previous leader's hold if leadership changed.
+     * IMPORTANT: do NOT modify users.balance here. Only create/raise holds.
+     *
+     * @param previousLeaderHoldId HELD hold of the leader before this bid, or null if none
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Placement apply(UUID auctionId, ProxyBidResolver.Outcome outcome, UUID previousLeaderHoldId) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        UUID bidderId = outcome.getBidderId();
+
+        // Bid history rows, 1µs apart so (amount DESC, created_at DESC) keeps the resolution order on ties.
+        Bid bidderBid = null;
+        List<Bid> written = new ArrayList<>();
+        List<ProxyBidResolver.Step> steps = outcome.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            ProxyBidResolver.Step step = steps.get(i);
+            Bid bid = Bid.builder()
+                    .id(UUID.randomUUID())
+                    .auctionId(auctionId)
+                    .userId(step.getUserId())
+                    .amount(step.getAmount())
+                    .createdAt(now.plusNanos(i * 1000L))
+                    .build();
+            bidRepository.save(bid);
+            written.add(bid);
+            if (bidderId.equals(step.getUserId())) bidderBid = bid;
+        }
+
+        Hold leaderHold = null;
+        if (outcome.isBidderLeading()) {
+            leaderHold = holdFor(bidderId, auctionId, outcome.getLeaderHoldAmount(), now);
+        }
+
+        // Proxy rows: only the leader's proxy stays ACTIVE.
+        if (outcome.isProxy()) {
+            proxyBidRepository.upsert(UUID.randomUUID(), auctionId, bidderId, outcome.getBidderAmount(),
+                    outcome.isBidderLeading() ? "ACTIVE" : "INACTIVE", now);
+        } else if (outcome.isBidderLeading() && !outcome.isLeaderChanged()
+                && outcome.getPreviousLeaderMax() != null && outcome.getLeaderMax() == null) {
+            // leader's manual bid went above their own proxy maximum
+            proxyBidRepository.deactivate(auctionId, bidderId, now);
+        }
+        if (outcome.isLeaderChanged() && outcome.getPreviousLeaderMax() != null) {
+            proxyBidRepository.deactivate(auctionId, outcome.getPreviousLeaderUserId(), now);
+        }
+
+        if (outcome.isLeaderChanged() && previousLeaderHoldId != null) {
+            releasePrevious(previousLeaderHoldId, bidderId, now);
+        }
+
+        eventPublisher.publishEvent(new BidPlacedEvent(auctionId, written, outcome.getPrice(), outcome.getLeaderUserId()));
+        return new Placement(bidderBid, leaderHold);
+    }
+
+    // One statement creates the hold or raises the existing one (one HELD row per user+auction),
+    // then reserves the difference on users.held_total.
+    private Hold holdFor(UUID userId, UUID auctionId, BigDecimal amount, OffsetDateTime now) {
+        HoldUpsertView upserted = holdRepository.upsertHeld(UUID.randomUUID(), userId, auctionId, amount, now);
+        BigDecimal previous = upserted.getPreviousAmount();
+
+        // Additional amount needed on top of user's existing hold for this auction
+        BigDecimal additional = previous == null ? amount : amount.subtract(previous);
+        if (additional.compareTo(BigDecimal.ZERO) < 0) additional = BigDecimal.ZERO;
+
+        log.debug("hold: user={} auction={} amount={} previousHold={} additional={}",
+                userId, auctionId, amount, previous, additional);
+
+        if (additional.compareTo(BigDecimal.ZERO) > 0) {
+            // Reserve on users.held_total: balance is NOT reduced by holds in this model;
+            // available = balance - held_total. Failure rolls back the bid and the upsert.
+            if (userRepository.reserveHeld(userId, additional) == 0) {
+                if (!userRepository.existsById(userId)) throw new IllegalStateException("user not found");
+                throw new IllegalStateException("insufficient funds");
+            }
+            // Do not deduct user.balance here; record HOLD ledger entries to represent hold.
+            holdLedger.recordHold(userId, upserted.getId(), additional,
+                    previous == null ? "Hold for bid" : "Hold additional for increased bid", now);
+        }
+
+        return syncManagedHold(upserted.getId());
+    }
+
+    private void releasePrevious(UUID previousLeaderHoldId, UUID bidderId, OffsetDateTime now) {
+        // reload prev from DB to ensure current state; its user's held_total is given back below
+        Hold prevFromDb = holdRepository.findById(previousLeaderHoldId).orElse(null);
+        if (prevFromDb != null && !"RELEASED".equalsIgnoreCase(prevFromDb.getStatus())
+                && !prevFromDb.getUserId().equals(bidderId)) {
+            // Only mark prev RELEASED — do NOT refund user.balance since balance was not deducted at hold time.
+            prevFromDb.setStatus("RELEASED");
+            prevFromDb.setReleasedAt(now);
+            prevFromDb = holdRepository.save(prevFromDb);
+            userRepository.releaseHeld(prevFromDb.getUserId(), prevFromDb.getAmount());
+
+            // REFUND/RELEASE ledger entries for bookkeeping, but DO NOT change user.balance.
+            holdLedger.recordRelease(prevFromDb.getUserId(), prevFromDb.getId(), null, prevFromDb.getAmount(),
+                    "Hold released due to being outbid (no balance was charged at hold time)", now);
+
+            log.info("Released previous hold {} (user {}) amount={} — no balance refunded because hold didn't deduct balance",
+                    prevFromDb.getId(), prevFromDb.getUserId(), prevFromDb.getAmount());
+        } else {
+            log.debug("Previous top hold {} not present or already released or belongs to current user - skip release",
+                    previousLeaderHoldId);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.huyin.inner_auction.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kiểm tra định kỳ users.held_total so với SUM(holds.amount WHERE status='HELD').
+ *
+ * Vietnamese:
+ * - Bước 1 chỉ đọc: tìm các user bị lệch.
+ * - Bước 2 sửa từng user trong transaction riêng: lock row users trước rồi mới tính lại SUM,
+ *   để không ghi đè giá trị của một bid đang chạy (bid giữ lock row users tới khi commit).
+ * - Interval cấu hình qua app.wallet.held-reconcile-interval-ms (mặc định 1 giờ).
+ * - Chỉ chạy trên node đang giữ SchedulerLease.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HeldTotalReconciler {
+
+    private static final String FIND_DRIFTED =
+            "SELECT u.id FROM users u " +
+            "LEFT JOIN (SELECT user_id, SUM(amount) AS held FROM holds WHERE status = 'HELD' GROUP BY user_id) h " +
+            "ON h.user_id = u.id " +
+            "WHERE u.held_total <> COALESCE(h.held, 0)";
+
+    private static final String HELD_SUM =
+            "SELECT COALESCE(SUM(amount), 0) FROM holds WHERE user_id = ? AND status = 'HELD'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLease schedulerLease;
+
+    @Scheduled(fixedDelayString = "${app.wallet.held-reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        if (!schedulerLease.isLeader()) return; // full-table scan: one node is enough
+        try {
+            List<UUID> drifted = jdbcTemplate.queryForList(FIND_DRIFTED, UUID.class);
+            for (UUID userId : drifted) {
+                transactionTemplate.executeWithoutResult(status -> fix(userId));
+            }
+        } catch (Exception ex) {
+            log.error("HeldTotalReconciler: lỗi khi kiểm tra held_total", ex);
+        }
+    }
+
+    private void fix(UUID userId) {
+        List<BigDecimal> current = jdbcTemplate.queryForList(
+                "SELECT held_total FROM users WHERE id = ? FOR UPDATE", BigDecimal.class, userId);
+        if (current.isEmpty()) return;
+        BigDecimal actual = jdbcTemplate.queryForObject(HELD_SUM, BigDecimal.class, userId);
+        if (actual == null || actual.compareTo(current.get(0)) == 0) return;
+
+        jdbcTemplate.update("UPDATE users SET held_total = ? WHERE id = ?", actual, userId);
+        log.warn("held_total drift corrected for user {}: was {} now {}", userId, current.get(0), actual);
+    }
+}
@@ -0,0 +1,97 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.entity.EscrowEntry;
+import com.huyin.inner_auction.entity.LedgerOutbox;
+import com.huyin.inner_auction.entity.Transaction;
+import com.huyin.inner_auction.entity.TransactionType;
+import com.huyin.inner_auction.repository.EscrowEntryRepository;
+import com.huyin.inner_auction.repository.LedgerOutboxRepository;
+import com.huyin.inner_auction.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Ghi bút toán (escrow_entries + transactions) cho hold trên bid path.
+ *
+ * - app.ledger.outbox.enabled=true (mặc định): chỉ ghi 1 dòng ledger_outbox trong transaction của bid,
+ *   LedgerOutboxDrainer sẽ bung ra escrow_entries/transactions bằng JDBC batch.
+ * - false: ghi trực tiếp EscrowEntry + Transaction như trước.
+ */
+@Component
+@RequiredArgsConstructor
+public class HoldLedger {
+
+    private final LedgerOutboxRepository ledgerOutboxRepository;
+    private final EscrowEntryRepository escrowEntryRepository;
+    private final TransactionRepository transactionRepository;
+
+    @Value("${app.ledger.outbox.enabled:true}")
+    private boolean outboxEnabled;
+
+    /**
+     * HOLD escrow entry + HOLD transaction (logical OUT, balance not physically changed).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordHold(UUID userId, UUID holdId, BigDecimal amount, String description, OffsetDateTime at) {
+        record(userId, holdId, null, "HOLD", TransactionType.HOLD, "OUT", amount, description, at);
+    }
+
+    /**
+     * REFUND escrow entry + RELEASE transaction for a released hold.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRelease(UUID userId, UUID holdId, UUID saleId, BigDecimal amount, String description, OffsetDateTime at) {
+        record(userId, holdId, saleId, "REFUND", TransactionType.RELEASE, "IN", amount, description, at);
+    }
+
+    private void record(UUID userId, UUID holdId, UUID saleId, String escrowType, TransactionType txType,
+                        String direction, BigDecimal amount, String description, OffsetDateTime at) {
+        if (outboxEnabled) {
+            // no id: LedgerOutbox.prePersist assigns it, so save() persists instead of merging (no SELECT first)
+            ledgerOutboxRepository.save(LedgerOutbox.builder()
+                    .userId(userId)
+                    .saleId(saleId)
+                    .referenceId(holdId)
+                    .relatedEntity("HOLD")
+                    .escrowType(escrowType)
+                    .txType(txType)
+                    .direction(direction)
+                    .amount(amount)
+                    .description(description)
+                    .createdAt(at)
+                    .build());
+            return;
+        }
+
+        escrowEntryRepository.save(EscrowEntry.builder()
+                .id(UUID.randomUUID())
+                .saleId(saleId)
+                .userId(userId)
+                .amount(amount)
+                .type(escrowType)
+                .relatedEntity("HOLD")
+                .referenceId(holdId)
+                .createdAt(at)
+                .build());
+
+        transactionRepository.save(Transaction.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .type(txType)
+                .amount(amount)
+                .referenceId(holdId)
+                .relatedEntity("HOLD")
+                .status("COMPLETED")
+                .createdAt(at)
+                .direction(direction)
+                .description(description)
+                .build());
+    }
+}
@@ -0,0 +1,152 @@
+package com.huyin.inner_auction.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chạy một job quét bảng theo keyset (WHERE key > :last ORDER BY key LIMIT :n), commit theo từng chunk.
+ *
+ * Vietnamese:
+ * - Mỗi chunk: đọc + xử lý + lưu checkpoint (batch_job_checkpoints.last_key) trong cùng một transaction,
+ *   nên restart giữa chừng sẽ tiếp tục sau chunk cuối đã commit, không xử lý lại.
+ * - Chunk lỗi (rollback): xử lý lại từng item trong transaction riêng, bỏ qua (log) item lỗi, rồi đi tiếp,
+ *   để một item hỏng không chặn cả job.
+ * - Hết dữ liệu: xóa last_key (lần chạy sau bắt đầu lại từ đầu) và ghi số item + thời gian của lần chạy.
+ * - Heap chỉ giữ một chunk; throughput (items/s) được log theo chunk và cho cả lần chạy.
+ * - Nhiều node chạy cùng job (reader dùng SKIP LOCKED) thì checkpoint là của node ghi sau cùng; item bị bỏ qua
+ *   khi resume sẽ được lấy ở lần chạy kế tiếp vì last_key được reset khi chạy xong.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KeysetBatchRunner {
+
+    /**
+     * One keyset-paginated job. Keys are encoded as strings so any (composite) key can be checkpointed.
+     */
+    public interface Job<T> {
+        String name();
+
+        /**
+         * Next items after {@code afterKey} (null = from the start), in key order; runs inside the chunk transaction.
+         */
+        List<T> readChunk(String afterKey, int limit);
+
+        String keyOf(T item);
+
+        void process(T item);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final long items;
+        private final long failed;
+        private final int chunks;
+        private final long elapsedMs;
+    }
+
+    private static final String READ_CHECKPOINT = "SELECT last_key FROM batch_job_checkpoints WHERE job_name = ?";
+
+    private static final String SAVE_CHECKPOINT =
+            "INSERT INTO batch_job_checkpoints (job_name, last_key, updated_at) VALUES (?, ?, now()) " +
+            "ON CONFLICT (job_name) DO UPDATE SET last_key = EXCLUDED.last_key, updated_at = EXCLUDED.updated_at";
+
+    private static final String COMPLETE =
+            "INSERT INTO batch_job_checkpoints (job_name, last_key, updated_at, last_run_items, last_run_ms, last_completed_at) " +
+            "VALUES (?, NULL, now(), ?, ?, now()) " +
+            "ON CONFLICT (job_name) DO UPDATE SET last_key = NULL, updated_at = now(), " +
+            "last_run_items = EXCLUDED.last_run_items, last_run_ms = EXCLUDED.last_run_ms, last_completed_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public <T> Result run(Job<T> job, int chunkSize) {
+        int limit = Math.max(1, chunkSize);
+        String afterKey = readCheckpoint(job.name());
+        if (afterKey != null) log.info("Batch job {}: resuming after {}", job.name(), afterKey);
+
+        long started = System.nanoTime();
+        long items = 0;
+        long failed = 0;
+        int chunks = 0;
+        while (true) {
+            long chunkStarted = System.nanoTime();
+            String cursor = afterKey;
+            List<T> chunk = new ArrayList<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    chunk.addAll(job.readChunk(cursor, limit));
+                    for (T item : chunk) {
+                        job.process(item);
+                    }
+                    if (!chunk.isEmpty()) saveCheckpoint(job.name(), job.keyOf(chunk.get(chunk.size() - 1)));
+                });
+            } catch (Exception ex) {
+                if (chunk.isEmpty()) {
+                    log.error("Batch job {}: reading chunk after {} failed, stopping", job.name(), cursor, ex);
+                    return new Result(items, failed, chunks, elapsedMs(started));
+                }
+                log.warn("Batch job {}: chunk after {} failed ({}), retrying item by item", job.name(), cursor, ex.getMessage());
+                failed += processOneByOne(job, chunk);
+            }
+            if (chunk.isEmpty()) break;
+
+            chunks++;
+            items += chunk.size();
+            afterKey = job.keyOf(chunk.get(chunk.size() - 1));
+            long chunkMs = elapsedMs(chunkStarted);
+            log.debug("Batch job {}: chunk {} of {} items in {} ms ({} items/s)",
+                    job.name(), chunks, chunk.size(), chunkMs, perSecond(chunk.size(), chunkMs));
+            if (chunk.size() < limit) break;
+        }
+
+        long elapsed = elapsedMs(started);
+        jdbcTemplate.update(COMPLETE, job.name(), items, elapsed);
+        if (items > 0) {
+            log.info("Batch job {}: {} items ({} failed) in {} chunks, {} ms ({} items/s)",
+                    job.name(), items, failed, chunks, elapsed, perSecond(items, elapsed));
+        }
+        return new Result(items, failed, chunks, elapsed);
+    }
+
+    // fallback after a chunk rolled back: one transaction per item, then move the checkpoint past the chunk
+    private <T> long processOneByOne(Job<T> job, List<T> chunk) {
+        long failed = 0;
+        for (T item : chunk) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> job.process(item));
+            } catch (Exception ex) {
+                failed++;
+                log.error("Batch job {}: item {} failed", job.name(), job.keyOf(item), ex);
+            }
+        }
+        saveCheckpoint(job.name(), job.keyOf(chunk.get(chunk.size() - 1)));
+        return failed;
+    }
+
+    private String readCheckpoint(String jobName) {
+        List<String> keys = jdbcTemplate.queryForList(READ_CHECKPOINT, String.class, jobName);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    private void saveCheckpoint(String jobName, String lastKey) {
+        jdbcTemplate.update(SAVE_CHECKPOINT, jobName, lastKey);
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000L;
+    }
+
+    private static long perSecond(long items, long ms) {
+        return items * 1000L / Math.max(1L, ms);
+    }
+}
@@ -0,0 +1,59 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.entity.EscrowEntry;
+import com.huyin.inner_auction.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC batch insert cho escrow_entries / transactions (bỏ qua persistence context của JPA).
+ * Với reWriteBatchedInserts=true trên JDBC URL, mỗi batch thành INSERT nhiều dòng.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerBatchWriter {
+
+    private static final String INSERT_ESCROW =
+            "INSERT INTO escrow_entries (id, sale_id, user_id, amount, type, related_entity, reference_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO transactions (id, user_id, type, amount, reference_id, related_entity, status, created_at, direction, description) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertEscrowEntries(List<EscrowEntry> entries) {
+        if (entries.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_ESCROW, entries, entries.size(), (ps, e) -> {
+            ps.setObject(1, e.getId() == null ? UUID.randomUUID() : e.getId());
+            ps.setObject(2, e.getSaleId());
+            ps.setObject(3, e.getUserId());
+            ps.setBigDecimal(4, e.getAmount());
+            ps.setString(5, e.getType());
+            ps.setString(6, e.getRelatedEntity());
+            ps.setObject(7, e.getReferenceId());
+            ps.setObject(8, e.getCreatedAt());
+        });
+    }
+
+    public void insertTransactions(List<Transaction> txs) {
+        if (txs.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, txs, txs.size(), (ps, t) -> {
+            ps.setObject(1, t.getId() == null ? UUID.randomUUID() : t.getId());
+            ps.setObject(2, t.getUserId());
+            ps.setString(3, t.getType().name());
+            ps.setBigDecimal(4, t.getAmount());
+            ps.setObject(5, t.getReferenceId());
+            ps.setString(6, t.getRelatedEntity());
+            ps.setString(7, t.getStatus() == null ? "COMPLETED" : t.getStatus());
+            ps.setObject(8, t.getCreatedAt());
+            ps.setString(9, t.getDirection());
+            ps.setString(10, t.getDescription());
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.entity.EscrowEntry;
+import com.huyin.inner_auction.entity.Transaction;
+import com.huyin.inner_auction.entity.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bung các dòng ledger_outbox thành escrow_entries + transactions (JDBC batch), rồi xoá khỏi outbox,
+ * tất cả trong cùng một transaction. FOR UPDATE SKIP LOCKED để nhiều node có thể drain song song.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerOutboxDrainer {
+
+    private static final String CLAIM_BATCH =
+            "SELECT id, user_id, sale_id, reference_id, related_entity, escrow_type, tx_type, direction, amount, description, created_at " +
+            "FROM ledger_outbox ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerBatchWriter ledgerBatchWriter;
+
+    @Value("${app.ledger.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.ledger.outbox.drain-interval-ms:200}")
+    @Transactional
+    public void drain() {
+        List<UUID> ids = new ArrayList<>();
+        List<EscrowEntry> entries = new ArrayList<>();
+        List<Transaction> txs = new ArrayList<>();
+
+        jdbcTemplate.query(CLAIM_BATCH, rs -> {
+            UUID userId = rs.getObject("user_id", UUID.class);
+            UUID saleId = rs.getObject("sale_id", UUID.class);
+            UUID referenceId = rs.getObject("reference_id", UUID.class);
+            String relatedEntity = rs.getString("related_entity");
+            OffsetDateTime createdAt = rs.getObject("created_at", OffsetDateTime.class);
+
+            ids.add(rs.getObject("id", UUID.class));
+            entries.add(EscrowEntry.builder()
+                    .id(UUID.randomUUID())
+                    .saleId(saleId)
+                    .userId(userId)
+                    .amount(rs.getBigDecimal("amount"))
+                    .type(rs.getString("escrow_type"))
+                    .relatedEntity(relatedEntity)
+                    .referenceId(referenceId)
+                    .createdAt(createdAt)
+                    .build());
+            txs.add(Transaction.builder()
+                    .id(UUID.randomUUID())
+                    .userId(userId)
+                    .type(TransactionType.valueOf(rs.getString("tx_type")))
+                    .amount(rs.getBigDecimal("amount"))
+                    .referenceId(referenceId)
+                    .relatedEntity(relatedEntity)
+                    .status("COMPLETED")
+                    .createdAt(createdAt)
+                    .direction(rs.getString("direction"))
+                    .description(rs.getString("description"))
+                    .build());
+        }, batchSize);
+
+        if (ids.isEmpty()) return;
+
+        ledgerBatchWriter.insertEscrowEntries(entries);
+        ledgerBatchWriter.insertTransactions(txs);
+        jdbcTemplate.batchUpdate("DELETE FROM ledger_outbox WHERE id = ?", ids, ids.size(),
+                (ps, id) -> ps.setObject(1, id));
+
+        log.debug("Drained {} ledger outbox entries", ids.size());
+    }
+}
@@ -1,5 +1,6 @@
 package com.huyin.inner_auction.service.impl;
 
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.entity.Message;
 import com.huyin.inner_auction.entity.User;
 import com.huyin.inner_auction.repository.MessageRepository;
@@ -72,21 +73,21 @@ public class MessageServiceImpl implements MessageService {
     }
 
     @Override
-    public List<Message> getConversation(UUID userA, UUID userB) {
-        if (userA == null || userB == null) return new ArrayList<>();
-        // fetch two directions and merge/sort
-        List<Message> aToB = messageRepository.findByFromUserAndToUserOrderByCreatedAtAsc(userA, userB);
-        List<Message> bToA = messageRepository.findByFromUserAndToUserOrderByCreatedAtAsc(userB, userA);
-        List<Message> merged = new ArrayList<>();
-        merged.addAll(aToB);
-        merged.addAll(bToA);
-        merged.sort((m1, m2) -> m1.getCreatedAt().compareTo(m2.getCreatedAt()));
-        return merged;
+    public CursorPageDto<Message> getConversation(UUID userA, UUID userB, String cursor, Integer limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        int size = PageCursor.clampLimit(limit, PageCursor.DEFAULT_LIMIT);
+        if (userA == null || userB == null) return CursorPageDto.<Message>builder().items(new ArrayList<>()).build();
+        // both directions in one keyset query, newest first
+        List<Message> rows = messageRepository.findConversationPage(userA, userB, after.getCreatedAtUtc(), after.getId(), size + 1);
+        return PageCursor.page(rows, size, m -> m.getCreatedAt().toInstant(), Message::getId, l -> l);
     }
 
     @Override
-    public List<Message> getUserMessages(UUID userId) {
-        if (userId == null) return new ArrayList<>();
-        return messageRepository.findByFromUserOrToUserOrderByCreatedAtDesc(userId, userId);
+    public CursorPageDto<Message> getUserMessages(UUID userId, String cursor, Integer limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        int size = PageCursor.clampLimit(limit, PageCursor.DEFAULT_LIMIT);
+        if (userId == null) return CursorPageDto.<Message>builder().items(new ArrayList<>()).build();
+        List<Message> rows = messageRepository.findUserPage(userId, after.getCreatedAtUtc(), after.getId(), size + 1);
+        return PageCursor.page(rows, size, m -> m.getCreatedAt().toInstant(), Message::getId, l -> l);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.ProxyBidResultDto;
+import com.huyin.inner_auction.entity.Auction;
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import com.huyin.inner_auction.service.BidService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * BidService không lock auction row khi đọc (bật bằng app.bid.engine=optimistic).
+ *
+ * Vietnamese:
+ * - Đọc auction + leader, resolve bid, ghi bid/hold, cuối cùng UPDATE auctions ... WHERE version = ?.
+ *   Row lock trên auctions chỉ bị giữ từ câu UPDATE cuối tới commit thay vì suốt transaction.
+ * - Nếu version đã đổi (bid khác commit trước) thì rollback và thử lại, tối đa app.bid.optimistic.max-attempts lần.
+ *   Lần thử lại resolve trên giá mới, nên bid đã quá thấp bị từ chối ngay (IllegalArgumentException), không retry.
+ * - Finalize vẫn đi qua BidServiceImpl.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.bid.engine", havingValue = "optimistic")
+@Slf4j
+public class OptimisticBidService implements BidService {
+
+    /**
+     * The auction version changed between read and update; the attempt was rolled back.
+     */
+    static class VersionConflictException extends IllegalStateException {
+        VersionConflictException() {
+            super("auction changed concurrently");
+        }
+    }
+
+    private final AuctionRepository auctionRepository;
+    private final BidWriter bidWriter;
+    private final BidServiceImpl lockingBidService;
+    private final TransactionTemplate transactionTemplate;
+    private final BidIdempotencyCache idempotencyCache;
+    private final int maxAttempts;
+
+    public OptimisticBidService(AuctionRepository auctionRepository,
+                                BidWriter bidWriter,
+                                BidServiceImpl lockingBidService,
+                                TransactionTemplate transactionTemplate,
+                                BidIdempotencyCache idempotencyCache,
+                                @Value("${app.bid.optimistic.max-attempts:5}") int maxAttempts) {
+        this.auctionRepository = auctionRepository;
+        this.bidWriter = bidWriter;
+        this.lockingBidService = lockingBidService;
+        this.transactionTemplate = transactionTemplate;
+        this.idempotencyCache = idempotencyCache;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @Override
+    public Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount, String idempotencyKey) {
+        return placeWithRetry(userId, auctionId, amount, false, idempotencyKey).getBid();
+    }
+
+    @Override
+    public ProxyBidResultDto placeProxyBid(UUID userId, UUID auctionId, BigDecimal maxAmount) {
+        BidWriter.Placement placement = placeWithRetry(userId, auctionId, maxAmount, true, null);
+        BigDecimal price = auctionRepository.findById(auctionId).map(Auction::getCurrentPrice).orElse(null);
+        return ProxyBidResultDto.builder()
+                .auctionId(auctionId)
+                .maxAmount(maxAmount)
+                .currentPrice(price)
+                .leading(placement.getHold() != null)
+                .build();
+    }
+
+    private BidWriter.Placement placeWithRetry(UUID userId, UUID auctionId, BigDecimal amount, boolean proxy,
+                                               String idempotencyKey) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+        if (auctionId == null) throw new IllegalArgumentException("auctionId required");
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("amount must be > 0");
+        }
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> attempt(userId, auctionId, amount, proxy, idempotencyKey));
+            } catch (VersionConflictException | ConcurrencyFailureException ex) {
+                // version moved, or lost a deadlock/lock race on holds against the winning bid
+                log.debug("Optimistic bid conflict: auction={} user={} attempt={}", auctionId, userId, attempt);
+            }
+        }
+        throw new IllegalStateException("auction busy, please retry");
+    }
+
+    // Runs inside one transaction; throws VersionConflictException (rollback) if another bid committed first.
+    private BidWriter.Placement attempt(UUID userId, UUID auctionId, BigDecimal amount, boolean proxy,
+                                        String idempotencyKey) {
+        // rolled back together with the attempt on a version conflict
+        if (idempotencyKey != null) idempotencyCache.reserve(userId, idempotencyKey);
+
+        Auction auction = auctionRepository.findById(auctionId).orElse(null);
+        if (auction == null) throw new IllegalStateException("auction not found");
+
+        BidRules.checkOpen(auction.getStatus(), auction.getStartAt(), auction.getEndAt(), Instant.now());
+
+        BidWriter.Leader leader = bidWriter.findLeader(auctionId);
+        ProxyBidResolver.Outcome outcome = ProxyBidResolver.resolve(
+                auction.getCurrentPrice(), auction.getStartingPrice(), auction.getMinIncrement(),
+                leader.getUserId(), leader.getProxyMax(), userId, amount, proxy);
+
+        BidWriter.Placement placement = bidWriter.apply(auctionId, outcome, leader.getHoldId());
+
+        long version = auction.getVersion() == null ? 0L : auction.getVersion();
+        if (auctionRepository.updatePriceIfVersion(auctionId, version, outcome.getPrice()) == 0) {
+            throw new VersionConflictException();
+        }
+        if (idempotencyKey != null) idempotencyCache.bind(userId, idempotencyKey, placement.getBid().getId());
+
+        log.info("Bid placed (optimistic): auction={} user={} amount={} proxy={} price={} leader={}",
+                auctionId, userId, amount, proxy, outcome.getPrice(), outcome.getLeaderUserId());
+        return placement;
+    }
+
+    @Override
+    public void finalizeEndedAuctions() {
+        lockingBidService.finalizeEndedAuctions();
+    }
+
+    @Override
+    public void finalizeAuction(UUID auctionId) {
+        lockingBidService.finalizeAuction(auctionId);
+    }
+}
@@ -0,0 +1,112 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.CursorPageDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset cursor (created_at, id) cho các list endpoint sắp xếp "created_at DESC, id DESC".
+ *
+ * Vietnamese:
+ * - Query lấy các row có (created_at, id) < cursor, nên page sâu tốn như page đầu (không OFFSET, không count(*)).
+ * - Page đầu dùng START (sau mọi row) để chỉ cần một câu query cho cả hai trường hợp.
+ * - Cursor là base64url của "epochSecond.micros|uuid"; created_at được cắt về micro giây như Postgres lưu.
+ * - Chuỗi không decode được -> IllegalArgumentException (controller trả 400).
+ */
+final class PageCursor {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 100;
+
+    /** Sorts after every real row. */
+    static final PageCursor START = new PageCursor(
+            Instant.parse("9999-12-31T00:00:00Z"), new UUID(-1L, -1L));
+
+    private final Instant createdAt;
+    private final UUID id;
+
+    private PageCursor(Instant createdAt, UUID id) {
+        this.createdAt = createdAt.truncatedTo(ChronoUnit.MICROS);
+        this.id = id;
+    }
+
+    Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    OffsetDateTime getCreatedAtUtc() {
+        return createdAt.atOffset(ZoneOffset.UTC);
+    }
+
+    UUID getId() {
+        return id;
+    }
+
+    static PageCursor of(Instant createdAt, UUID id) {
+        return new PageCursor(createdAt, id);
+    }
+
+    /**
+     * Null or blank means the first page.
+     */
+    static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return START;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            int dot = raw.indexOf('.');
+            if (bar < 0 || dot < 0 || dot > bar) throw new IllegalArgumentException("invalid cursor");
+            long seconds = Long.parseLong(raw.substring(0, dot));
+            long micros = Long.parseLong(raw.substring(dot + 1, bar));
+            UUID id = UUID.fromString(raw.substring(bar + 1));
+            return new PageCursor(Instant.ofEpochSecond(seconds, micros * 1_000L), id);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = createdAt.getEpochSecond() + "." + (createdAt.getNano() / 1_000) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int clampLimit(Integer limit, int defaultLimit) {
+        if (limit == null) return defaultLimit;
+        return Math.min(Math.max(1, limit), MAX_LIMIT);
+    }
+
+    /**
+     * Builds the page from a query that fetched {@code limit + 1} rows: the extra row only signals that more exist.
+     */
+    static <E, T> CursorPageDto<T> page(List<E> rows, int limit,
+                                        Function<E, Instant> createdAt, Function<E, UUID> id,
+                                        Function<List<E>, List<T>> mapper) {
+        boolean more = rows.size() > limit;
+        List<E> content = more ? rows.subList(0, limit) : rows;
+        String next = null;
+        if (more) {
+            E last = content.get(content.size() - 1);
+            next = of(createdAt.apply(last), id.apply(last)).encode();
+        }
+        return CursorPageDto.<T>builder()
+                .items(mapper.apply(content))
+                .nextCursor(next)
+                .build();
+    }
+
+    /**
+     * Orders UUIDs like Postgres (unsigned, byte by byte), unlike {@link UUID#compareTo}.
+     */
+    static int compareIds(UUID a, UUID b) {
+        int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,41 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.repository.PlatformBalanceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cộng dồn platform_commission_deltas vào platform_balance theo chu kỳ.
+ *
+ * Vietnamese:
+ * - Finalize chỉ INSERT một dòng delta, không còn cập nhật dòng platform_balance duy nhất (hot row).
+ * - Job này xóa các delta và cộng vào platform_balance trong cùng một câu lệnh, nên không mất / đếm trùng,
+ *   kể cả khi nhiều node cùng chạy.
+ * - Interval cấu hình qua app.platform.commission-rollup-interval-ms (mặc định 5 giây).
+ * - Chỉ node đang giữ SchedulerLease chạy job này, để các node không chờ lock của nhau trên platform_balance.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PlatformCommissionRollup {
+
+    private final PlatformBalanceRepository platformBalanceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLease schedulerLease;
+
+    @Scheduled(fixedDelayString = "${app.platform.commission-rollup-interval-ms:5000}")
+    public void rollUp() {
+        if (!schedulerLease.isLeader()) return;
+        try {
+            Integer updated = transactionTemplate.execute(status -> platformBalanceRepository.rollUpCommissionDeltas());
+            if (updated != null && updated > 0) {
+                log.debug("Platform commission deltas rolled up");
+            }
+        } catch (Exception ex) {
+            log.error("PlatformCommissionRollup: lỗi khi cộng commission", ex);
+        }
+    }
+}
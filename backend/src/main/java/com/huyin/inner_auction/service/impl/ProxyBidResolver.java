@@ -0,0 +1,124 @@
+package com.huyin.inner_auction.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Giải quyết một bid (thường hoặc proxy) với người dẫn đầu hiện tại, hoàn toàn trong RAM.
+ *
+ * Vietnamese:
+ * - Người dẫn đầu có thể có proxy (leaderMax); engine tự trả giá thay họ tới leaderMax.
+ * - Khi hai proxy gặp nhau thì nhảy thẳng tới giá chốt (max của bên thua + minIncrement, không vượt max bên thắng),
+ *   chỉ sinh tối đa 2 dòng bid thay vì một dòng cho mỗi bước giá.
+ * - Bằng max thì proxy đến trước thắng.
+ * - Không đụng DB; BidWriter.apply ghi kết quả.
+ */
+final class ProxyBidResolver {
+
+    private ProxyBidResolver() {
+    }
+
+    /**
+     * A bid row to write, in order.
+     */
+    @Getter
+    @AllArgsConstructor
+    static class Step {
+        private final UUID userId;
+        private final BigDecimal amount;
+    }
+
+    @Getter
+    @Builder
+    static class Outcome {
+        private final UUID bidderId;
+        // manual amount or proxy maximum sent by the bidder
+        private final BigDecimal bidderAmount;
+        private final boolean proxy;
+        private final UUID previousLeaderUserId;
+        private final BigDecimal previousLeaderMax;
+
+        private final List<Step> steps;
+        private final UUID leaderUserId;
+        private final BigDecimal price;
+        // leader's proxy maximum after this bid, null if the leader has no proxy
+        private final BigDecimal leaderMax;
+        // amount the leader's hold must cover (proxy max or bid amount)
+        private final BigDecimal leaderHoldAmount;
+
+        boolean isLeaderChanged() {
+            return !leaderUserId.equals(previousLeaderUserId);
+        }
+
+        boolean isBidderLeading() {
+            return bidderId.equals(leaderUserId);
+        }
+    }
+
+    /**
+     * @param leaderUserId current leader, null if no bids yet
+     * @param leaderMax    current leader's proxy maximum, null if the leader bid manually
+     * @param amount       manual bid amount, or the proxy maximum when {@code proxy} is true
+     */
+    static Outcome resolve(BigDecimal currentPrice, BigDecimal startingPrice, BigDecimal minIncrement,
+                           UUID leaderUserId, BigDecimal leaderMax,
+                           UUID bidderId, BigDecimal amount, boolean proxy) {
+        BigDecimal increment = minIncrement == null ? BigDecimal.ONE : minIncrement;
+        BigDecimal requiredMin = BidRules.requiredMinimum(currentPrice, startingPrice, minIncrement);
+        List<Step> steps = new ArrayList<>();
+        Outcome.OutcomeBuilder outcome = Outcome.builder()
+                .bidderId(bidderId)
+                .bidderAmount(amount)
+                .proxy(proxy)
+                .previousLeaderUserId(leaderUserId)
+                .previousLeaderMax(leaderMax)
+                .steps(steps);
+
+        if (bidderId.equals(leaderUserId)) {
+            BigDecimal ceiling = leaderMax != null ? leaderMax : currentPrice;
+            if (proxy) {
+                // Leader raises their own maximum: price stays, no bid row.
+                if (ceiling != null && amount.compareTo(ceiling) <= 0) {
+                    throw new IllegalArgumentException("max amount must be above your current maximum " + ceiling);
+                }
+                return outcome.leaderUserId(bidderId).price(currentPrice).leaderMax(amount).leaderHoldAmount(amount).build();
+            }
+            BidRules.checkAmount(amount, requiredMin);
+            steps.add(new Step(bidderId, amount));
+            BigDecimal keptMax = leaderMax != null && leaderMax.compareTo(amount) > 0 ? leaderMax : null;
+            return outcome.leaderUserId(bidderId).price(amount).leaderMax(keptMax)
+                    .leaderHoldAmount(keptMax != null ? keptMax : amount).build();
+        }
+
+        BidRules.checkAmount(amount, requiredMin);
+
+        if (leaderUserId == null) {
+            BigDecimal price = proxy ? requiredMin : amount;
+            steps.add(new Step(bidderId, price));
+            return outcome.leaderUserId(bidderId).price(price).leaderMax(proxy ? amount : null).leaderHoldAmount(amount).build();
+        }
+
+        BigDecimal leaderCeiling = leaderMax != null ? leaderMax : (currentPrice != null ? currentPrice : BigDecimal.ZERO);
+        if (amount.compareTo(leaderCeiling) > 0) {
+            // Challenger beats the leader; the leader's proxy first fights up to its max.
+            if (leaderMax != null && currentPrice != null && leaderMax.compareTo(currentPrice) > 0) {
+                steps.add(new Step(leaderUserId, leaderMax));
+            }
+            BigDecimal price = proxy ? amount.min(leaderCeiling.add(increment)) : amount;
+            steps.add(new Step(bidderId, price));
+            return outcome.leaderUserId(bidderId).price(price).leaderMax(proxy ? amount : null).leaderHoldAmount(amount).build();
+        }
+
+        // Leader's proxy defends (amount <= leaderMax; ties go to the earlier proxy).
+        BigDecimal price = leaderCeiling.min(amount.add(increment));
+        steps.add(new Step(bidderId, amount));
+        steps.add(new Step(leaderUserId, price));
+        return outcome.leaderUserId(leaderUserId).price(price).leaderMax(leaderMax).leaderHoldAmount(leaderMax).build();
+    }
+}
@@ -5,6 +5,7 @@ import com.huyin.inner_auction.repository.*;
 import com.huyin.inner_auction.service.SaleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,9 +20,10 @@ import java.util.UUID;
  * Implementation of SaleService
  *
  * Vietnamese:
- * - releaseFunds thực hiện việc chuyển net_amount cho seller, tạo transaction, escrow entry và cập nhật platform_balance.
+ * - releaseFunds thực hiện việc chuyển net_amount cho seller, tạo transaction, escrow entry.
  * - confirmDelivery: buyer gọi -> ghi delivery confirmation và gọi releaseFunds.
- * - autoReleasePendingSales: scheduler gọi để auto release theo policy.
+ * - recordShipment: lưu shipment và đặt release_due_at.
+ * - autoReleasePendingSales: scheduler gọi để auto release các sale đã tới release_due_at.
  */
 @Service
 @RequiredArgsConstructor
@@ -35,9 +37,15 @@ public class SaleServiceImpl implements SaleService {
     private final EscrowEntryRepository escrowEntryRepository;
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
-    private final PlatformBalanceRepository platformBalanceRepository;
     private final PayoutRepository payoutRepository;
     private final EntityManager em;
+    private final KeysetBatchRunner keysetBatchRunner;
+
+    @Value("${app.sale.auto-release-batch-size:100}")
+    private int autoReleaseBatchSize;
+
+    @Value("${app.sale.auto-release-after-shipped-days:14}")
+    private long autoReleaseAfterShippedDays;
 
     @Override
     @Transactional
@@ -59,6 +67,8 @@ public class SaleServiceImpl implements SaleService {
                 .note(null)
                 .build();
         deliveryConfirmationRepository.save(dc);
+        // confirmed delivery makes the sale due now (in case the release below is retried by the job)
+        sale.setReleaseDueAt(OffsetDateTime.now());
 
         // Release funds
         releaseFunds(null, saleId); // admin/system user id optional
@@ -113,12 +123,7 @@ public class SaleServiceImpl implements SaleService {
                 .referenceId(sale.getId())
                 .build());
 
-        // Update platform_balance: commission was already added at finalize; if not, handle here.
-        PlatformBalance pb = platformBalanceRepository.findAll().stream().findFirst().orElse(null);
-        if (pb != null) {
-            pb.setLastUpdated(OffsetDateTime.now());
-            platformBalanceRepository.save(pb);
-        }
+        // platform_balance: commission was already credited at finalize (platform_commission_deltas)
 
         // Mark sale released
         sale.setStatus("RELEASED");
@@ -131,32 +136,67 @@ public class SaleServiceImpl implements SaleService {
 
     @Override
     @Transactional
+    public Shipment recordShipment(UUID saleId, String carrier, String trackingNumber, String labelUrl) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Shipment sh = Shipment.builder()
+                .saleId(saleId)
+                .carrier(carrier)
+                .trackingNumber(trackingNumber)
+                .labelUrl(labelUrl)
+                .shippedAt(now)
+                .build();
+        shipmentRepository.save(sh);
+        scheduleRelease(saleId, now.plusDays(autoReleaseAfterShippedDays));
+        return sh;
+    }
+
+    // set release_due_at, keeping an earlier deadline if one is already scheduled
+    private void scheduleRelease(UUID saleId, OffsetDateTime dueAt) {
+        saleRepository.findById(saleId).ifPresent(sale -> {
+            if (!"ESCROWED".equalsIgnoreCase(sale.getStatus())) return;
+            if (sale.getReleaseDueAt() != null && !dueAt.isBefore(sale.getReleaseDueAt())) return;
+            sale.setReleaseDueAt(dueAt);
+            saleRepository.save(sale);
+        });
+    }
+
+    @Override
     public void autoReleasePendingSales() {
-        // Policy example: release ESCROWED sales that have shipment.shipped_at + 14 days passed OR have delivery confirmation
-        List<Sale> escrows = saleRepository.findByStatus("ESCROWED");
-        for (Sale s : escrows) {
-            try {
-                // If delivery confirmation exists -> release
-                boolean hasConfirm = em.createQuery("SELECT count(dc) FROM DeliveryConfirmation dc WHERE dc.saleId = :saleId", Long.class)
-                        .setParameter("saleId", s.getId()).getSingleResult() > 0;
-                if (hasConfirm) {
-                    releaseFunds(null, s.getId());
-                    continue;
-                }
-                // Else check shipment date
-                Shipment sh = (Shipment) em.createQuery("SELECT sh FROM Shipment sh WHERE sh.saleId = :saleId")
-                        .setParameter("saleId", s.getId())
-                        .setMaxResults(1)
-                        .getResultStream().findFirst().orElse(null);
-                if (sh != null && sh.getShippedAt() != null) {
-                    OffsetDateTime releaseAfter = sh.getShippedAt().plusDays(14); // policy: 14 days after shipped auto-release
-                    if (OffsetDateTime.now().isAfter(releaseAfter)) {
-                        releaseFunds(null, s.getId());
-                    }
-                }
-            } catch (Exception ex) {
-                log.error("autoRelease error for sale {}", s.getId(), ex);
+        // Policy: release ESCROWED sales whose release_due_at has passed (shipped_at + N days, or delivery confirmed).
+        // The deadline is set when the shipment / confirmation is recorded, so only due sales are read (partial index).
+        keysetBatchRunner.run(autoReleaseJob, autoReleaseBatchSize);
+    }
+
+    /**
+     * Due sales in (release_due_at, id) keyset chunks, claimed with SKIP LOCKED so nodes running the sweep at
+     * the same time split the sales instead of blocking on each other's row locks. Key: "{release_due_at}|{id}".
+     */
+    private final KeysetBatchRunner.Job<Sale> autoReleaseJob = new KeysetBatchRunner.Job<>() {
+        @Override
+        public String name() {
+            return "sale-auto-release";
+        }
+
+        @Override
+        public List<Sale> readChunk(String afterKey, int limit) {
+            OffsetDateTime afterDue = OffsetDateTime.parse("1970-01-01T00:00:00Z");
+            UUID afterId = new UUID(0L, 0L);
+            if (afterKey != null) {
+                int sep = afterKey.indexOf('|');
+                afterDue = OffsetDateTime.parse(afterKey.substring(0, sep));
+                afterId = UUID.fromString(afterKey.substring(sep + 1));
             }
+            return saleRepository.claimDueForRelease(afterDue, afterId, limit);
         }
-    }
-}
\ No newline at end of file
+
+        @Override
+        public String keyOf(Sale sale) {
+            return sale.getReleaseDueAt() + "|" + sale.getId();
+        }
+
+        @Override
+        public void process(Sale sale) {
+            releaseFunds(null, sale.getId());
+        }
+    };
+}
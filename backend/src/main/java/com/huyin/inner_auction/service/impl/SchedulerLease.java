@@ -0,0 +1,89 @@
+package com.huyin.inner_auction.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Lease "scheduler chính" giữa nhiều node bằng Postgres advisory lock (pg_try_advisory_lock, session-level).
+ *
+ * Vietnamese:
+ * - Node nào lấy được lock thì giữ một connection riêng (ngoài các transaction) để giữ lock; lock tự nhả khi
+ *   connection / process chết, nên node khác sẽ lấy được ở lần chạy kế tiếp.
+ * - Chỉ dùng cho các job chạy một node là đủ (quét toàn bảng, cộng dồn số liệu). Việc chia được
+ *   (finalize, auto-release) thì claim bằng SKIP LOCKED trên mọi node thay vì dùng lease.
+ * - Chiếm một connection của pool trên node đang giữ lease.
+ */
+@Component
+@Slf4j
+public class SchedulerLease {
+
+    private final DataSource dataSource;
+    private final long lockKey;
+    private Connection connection; // non-null while this node holds the lease
+
+    public SchedulerLease(DataSource dataSource,
+                          @Value("${app.scheduler.lease-key:4711001}") long lockKey) {
+        this.dataSource = dataSource;
+        this.lockKey = lockKey;
+    }
+
+    /**
+     * True if this node holds (or just acquired) the lease. Cheap when already held: only a connection check.
+     */
+    public synchronized boolean isLeader() {
+        try {
+            if (connection != null) {
+                if (connection.isValid(2)) return true;
+                log.warn("SchedulerLease: lease connection lost");
+                release();
+            }
+            Connection c = dataSource.getConnection();
+            boolean acquired = false;
+            try (PreparedStatement ps = c.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                ps.setLong(1, lockKey);
+                try (ResultSet rs = ps.executeQuery()) {
+                    acquired = rs.next() && rs.getBoolean(1);
+                }
+            } finally {
+                if (!acquired) c.close();
+            }
+            if (acquired) {
+                connection = c;
+                log.info("SchedulerLease: this node is now the active scheduler");
+            }
+            return acquired;
+        } catch (SQLException ex) {
+            log.error("SchedulerLease: could not check the lease", ex);
+            release();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void release() {
+        if (connection == null) return;
+        try {
+            // closing returns the connection to the pool with the session lock still held, so unlock first
+            try (PreparedStatement ps = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                ps.setLong(1, lockKey);
+                ps.execute();
+            }
+        } catch (SQLException ex) {
+            log.debug("SchedulerLease: unlock failed ({})", ex.getMessage());
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+            connection = null;
+        }
+    }
+}
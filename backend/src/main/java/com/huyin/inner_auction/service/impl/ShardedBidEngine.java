@@ -0,0 +1,220 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.ProxyBidResultDto;
+import com.huyin.inner_auction.entity.Auction;
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.event.AuctionFinalizedEvent;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Single-writer bid engine: mỗi auction thuộc về đúng một shard (hash auctionId % N),
+ * mỗi shard là một thread duy nhất giữ state của auction trong RAM.
+ *
+ * - Validate + sắp thứ tự bid trên state trong RAM, không SELECT ... FOR UPDATE trên auctions.
+ * - Proxy bid của người dẫn đầu (leaderProxyMax) được resolve trong RAM bằng ProxyBidResolver.
+ * - Chỉ bid được chấp nhận mới ghi DB (BidWriter.applyWithoutAuctionLock); state chỉ được cập nhật sau khi commit.
+ * - Nếu guarded UPDATE trên auctions không khớp (auction đã finalize / hết giờ / giá bị đổi nơi khác) thì state
+ *   bị evict và load lại ở bid kế tiếp. Bid bị từ chối vì auction không mở cũng evict (endAt có thể đã được gia hạn).
+ * - Auction finalize (AuctionFinalizedEvent, AFTER_COMMIT, bất kể đường finalize nào) thì state bị evict.
+ *
+ * Lưu ý: single-writer chỉ đúng trong một process; chạy nhiều node thì guarded UPDATE là chốt chặn cuối.
+ */
+@Component
+@ConditionalOnProperty(name = "app.bid.engine", havingValue = "sharded")
+@Slf4j
+public class ShardedBidEngine {
+
+    private final BidWriter bidWriter;
+    private final AuctionRepository auctionRepository;
+    private final Shard[] shards;
+    private final long timeoutMs;
+
+    public ShardedBidEngine(BidWriter bidWriter,
+                            AuctionRepository auctionRepository,
+                            @Value("${app.bid.sharded.shards:0}") int shardCount,
+                            @Value("${app.bid.sharded.queue-capacity:10000}") int queueCapacity,
+                            @Value("${app.bid.sharded.timeout-ms:5000}") long timeoutMs) {
+        this.bidWriter = bidWriter;
+        this.auctionRepository = auctionRepository;
+        this.timeoutMs = timeoutMs;
+        int n = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[n];
+        for (int i = 0; i < n; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+        log.info("ShardedBidEngine started with {} shards (queueCapacity={})", n, queueCapacity);
+    }
+
+    /**
+     * In-memory state of one auction, only touched by its owning shard thread.
+     */
+    private static class AuctionState {
+        String status;
+        Instant startAt;
+        Instant endAt;
+        BigDecimal startingPrice;
+        BigDecimal currentPrice;
+        BigDecimal minIncrement;
+        UUID leaderUserId;
+        UUID leaderHoldId;
+        BigDecimal leaderProxyMax; // null if the leader has no active proxy
+    }
+
+    private static class Shard {
+        final ThreadPoolExecutor executor;
+        final Map<UUID, AuctionState> states = new HashMap<>();
+
+        Shard(int index, int queueCapacity) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, "bid-shard-" + index);
+                        t.setDaemon(true);
+                        return t;
+                    });
+        }
+    }
+
+    private Shard shardFor(UUID auctionId) {
+        return shards[Math.floorMod(auctionId.hashCode(), shards.length)];
+    }
+
+    public Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount, String idempotencyKey) {
+        Shard shard = shardFor(auctionId);
+        return await(submit(shard, () -> process(shard, userId, auctionId, amount, false, idempotencyKey).getBid()));
+    }
+
+    public ProxyBidResultDto placeProxyBid(UUID userId, UUID auctionId, BigDecimal maxAmount) {
+        Shard shard = shardFor(auctionId);
+        return await(submit(shard, () -> {
+            BidWriter.Placement placement = process(shard, userId, auctionId, maxAmount, true, null);
+            return ProxyBidResultDto.builder()
+                    .auctionId(auctionId)
+                    .maxAmount(maxAmount)
+                    .currentPrice(shard.states.get(auctionId).currentPrice)
+                    .leading(placement.getHold() != null)
+                    .build();
+        }));
+    }
+
+    /**
+     * Drop cached state so the next bid reloads it from the database (e.g. after finalization).
+     */
+    public void evict(UUID auctionId) {
+        Shard shard = shardFor(auctionId);
+        try {
+            shard.executor.execute(() -> shard.states.remove(auctionId));
+        } catch (RejectedExecutionException ex) {
+            log.warn("Could not evict auction {} from bid shard (queue full)", auctionId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAuctionFinalized(AuctionFinalizedEvent event) {
+        evict(event.getAuctionId());
+    }
+
+    private <T> Future<T> submit(Shard shard, Callable<T> task) {
+        try {
+            return shard.executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            throw new IllegalStateException("bid engine busy, please retry");
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            try {
+                return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                // Only give up if the task has not started; once running, its outcome must be reported.
+                if (future.cancel(false)) {
+                    throw new IllegalStateException("bid engine timeout, please retry");
+                }
+                return future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for bid engine");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("bid engine failure", cause);
+        }
+    }
+
+    private AuctionState load(UUID auctionId) {
+        Auction a = auctionRepository.findById(auctionId).orElse(null);
+        if (a == null) return null;
+        AuctionState st = new AuctionState();
+        st.status = a.getStatus();
+        st.startAt = a.getStartAt();
+        st.endAt = a.getEndAt();
+        st.startingPrice = a.getStartingPrice();
+        st.currentPrice = a.getCurrentPrice();
+        st.minIncrement = a.getMinIncrement();
+        BidWriter.Leader leader = bidWriter.findLeader(auctionId);
+        st.leaderUserId = leader.getUserId();
+        st.leaderHoldId = leader.getHoldId();
+        st.leaderProxyMax = leader.getProxyMax();
+        return st;
+    }
+
+    // Runs on the shard thread.
+    private BidWriter.Placement process(Shard shard, UUID userId, UUID auctionId, BigDecimal amount, boolean proxy,
+                                        String idempotencyKey) {
+        AuctionState st = shard.states.computeIfAbsent(auctionId, this::load);
+        if (st == null) throw new IllegalStateException("auction not found");
+
+        try {
+            BidRules.checkOpen(st.status, st.startAt, st.endAt, Instant.now());
+        } catch (IllegalStateException ex) {
+            // cached window may be outdated (e.g. endAt extended): reload on the next bid
+            shard.states.remove(auctionId);
+            throw ex;
+        }
+        ProxyBidResolver.Outcome outcome = ProxyBidResolver.resolve(
+                st.currentPrice, st.startingPrice, st.minIncrement,
+                st.leaderUserId, st.leaderProxyMax, userId, amount, proxy);
+
+        BidWriter.Placement placement;
+        try {
+            placement = bidWriter.applyWithoutAuctionLock(auctionId, outcome, st.leaderHoldId, st.currentPrice,
+                    idempotencyKey);
+        } catch (BidWriter.StaleAuctionException ex) {
+            shard.states.remove(auctionId);
+            throw ex;
+        }
+
+        st.currentPrice = outcome.getPrice();
+        st.leaderUserId = outcome.getLeaderUserId();
+        st.leaderProxyMax = outcome.getLeaderMax();
+        if (placement.getHold() != null) {
+            st.leaderHoldId = placement.getHold().getId();
+        }
+        log.info("Bid placed (sharded): auction={} user={} amount={} proxy={} price={} leader={}",
+                auctionId, userId, amount, proxy, outcome.getPrice(), outcome.getLeaderUserId());
+        return placement;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+}
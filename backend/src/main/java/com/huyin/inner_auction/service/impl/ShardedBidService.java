@@ -0,0 +1,56 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.ProxyBidResultDto;
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.service.BidService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * BidService dùng ShardedBidEngine cho placeBid (bật bằng app.bid.engine=sharded).
+ * Finalize vẫn đi qua BidServiceImpl (lock auction row như cũ); engine tự evict state khi nhận AuctionFinalizedEvent.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.bid.engine", havingValue = "sharded")
+@RequiredArgsConstructor
+public class ShardedBidService implements BidService {
+
+    private final ShardedBidEngine engine;
+    private final BidServiceImpl lockingBidService;
+
+    @Override
+    public Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount, String idempotencyKey) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+        if (auctionId == null) throw new IllegalArgumentException("auctionId required");
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("amount must be > 0");
+        }
+        return engine.placeBid(userId, auctionId, amount, idempotencyKey);
+    }
+
+    @Override
+    public ProxyBidResultDto placeProxyBid(UUID userId, UUID auctionId, BigDecimal maxAmount) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+        if (auctionId == null) throw new IllegalArgumentException("auctionId required");
+        if (maxAmount == null || maxAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("amount must be > 0");
+        }
+        return engine.placeProxyBid(userId, auctionId, maxAmount);
+    }
+
+    @Override
+    public void finalizeEndedAuctions() {
+        lockingBidService.finalizeEndedAuctions();
+    }
+
+    @Override
+    public void finalizeAuction(UUID auctionId) {
+        lockingBidService.finalizeAuction(auctionId);
+    }
+}
@@ -0,0 +1,134 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.ProxyBidResultDto;
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import com.huyin.inner_auction.service.BidService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * BidService gọi hàm place_bid(...) trong Postgres (bật bằng app.bid.engine=db-function):
+ * toàn bộ bid thường chạy trong DB với một round trip (xem V8__place_bid_function.sql).
+ *
+ * Vietnamese:
+ * - Lỗi từ hàm: SQLSTATE P0B01 -> IllegalArgumentException (400), P0B09 -> IllegalStateException (409).
+ * - Auction có proxy bid đang ACTIVE: hàm trả 'FALLBACK' mà không ghi gì, bid đi qua BidServiceImpl
+ *   trong cùng transaction (ProxyBidResolver).
+ * - Proxy bid và finalize vẫn đi qua BidServiceImpl.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.bid.engine", havingValue = "db-function")
+@Slf4j
+public class StoredFunctionBidService implements BidService {
+
+    private static final String PLACE_BID = "SELECT * FROM place_bid(?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BidServiceImpl lockingBidService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BidIdempotencyCache idempotencyCache;
+    private final boolean useOutbox;
+
+    public StoredFunctionBidService(JdbcTemplate jdbcTemplate,
+                                    BidServiceImpl lockingBidService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    BidIdempotencyCache idempotencyCache,
+                                    @Value("${app.ledger.outbox.enabled:true}") boolean useOutbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockingBidService = lockingBidService;
+        this.eventPublisher = eventPublisher;
+        this.idempotencyCache = idempotencyCache;
+        this.useOutbox = useOutbox;
+    }
+
+    @Override
+    @Transactional
+    public Bid placeBid(UUID userId, UUID auctionId, BigDecimal amount, String idempotencyKey) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+        if (auctionId == null) throw new IllegalArgumentException("auctionId required");
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("amount must be > 0");
+        }
+
+        if (idempotencyKey != null) idempotencyCache.reserve(userId, idempotencyKey);
+
+        Map<String, Object> row;
+        try {
+            row = jdbcTemplate.queryForMap(PLACE_BID, userId, auctionId, amount, useOutbox);
+        } catch (DataAccessException ex) {
+            throw translate(ex);
+        }
+
+        if ("FALLBACK".equals(row.get("result"))) {
+            log.debug("place_bid fallback (active proxy) for auction {}", auctionId);
+            // joins this transaction, which already holds the key reservation
+            Bid bid = lockingBidService.placeBid(userId, auctionId, amount);
+            if (idempotencyKey != null) idempotencyCache.bind(userId, idempotencyKey, bid.getId());
+            return bid;
+        }
+
+        Bid bid = Bid.builder()
+                .id((UUID) row.get("bid_id"))
+                .auctionId(auctionId)
+                .userId(userId)
+                .amount(amount)
+                .createdAt(toOffsetDateTime(row.get("bid_created_at")))
+                .build();
+        if (idempotencyKey != null) idempotencyCache.bind(userId, idempotencyKey, bid.getId());
+        eventPublisher.publishEvent(new BidPlacedEvent(auctionId, List.of(bid), amount, userId));
+        log.info("Bid placed (db-function): auction={} user={} amount={} hold={}", auctionId, userId, amount, row.get("hold_id"));
+        return bid;
+    }
+
+    @Override
+    public ProxyBidResultDto placeProxyBid(UUID userId, UUID auctionId, BigDecimal maxAmount) {
+        return lockingBidService.placeProxyBid(userId, auctionId, maxAmount);
+    }
+
+    @Override
+    public void finalizeEndedAuctions() {
+        lockingBidService.finalizeEndedAuctions();
+    }
+
+    @Override
+    public void finalizeAuction(UUID auctionId) {
+        lockingBidService.finalizeAuction(auctionId);
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Object value) {
+        if (value instanceof OffsetDateTime odt) return odt;
+        if (value instanceof Timestamp ts) return ts.toInstant().atOffset(ZoneOffset.UTC);
+        return OffsetDateTime.now(ZoneOffset.UTC);
+    }
+
+    // Map the function's custom SQLSTATEs to the exceptions the controller already handles.
+    private static RuntimeException translate(DataAccessException ex) {
+        Throwable cause = ex.getMostSpecificCause();
+        if (cause instanceof SQLException sql) {
+            // driver message is "ERROR: <text>\n  Where: PL/pgSQL function ..."; keep only <text>
+            String message = sql.getMessage() == null ? "" : sql.getMessage().lines().findFirst().orElse("");
+            if (message.startsWith("ERROR: ")) message = message.substring("ERROR: ".length());
+            if ("P0B01".equals(sql.getSQLState())) return new IllegalArgumentException(message);
+            if ("P0B09".equals(sql.getSQLState())) return new IllegalStateException(message);
+        }
+        return ex;
+    }
+}
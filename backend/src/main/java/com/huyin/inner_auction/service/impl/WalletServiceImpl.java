@@ -1,5 +1,6 @@
 package com.huyin.inner_auction.service.impl;
 
+import com.huyin.inner_auction.dto.CursorPageDto;
 import com.huyin.inner_auction.dto.WalletDto;
 import com.huyin.inner_auction.entity.Transaction;
 import com.huyin.inner_auction.entity.TransactionType;
@@ -7,7 +8,6 @@ import com.huyin.inner_auction.entity.User;
 import com.huyin.inner_auction.repository.TransactionRepository;
 import com.huyin.inner_auction.repository.UserRepository;
 import com.huyin.inner_auction.service.WalletService;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,13 +21,11 @@ public class WalletServiceImpl implements WalletService {
 
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
-    private final JdbcTemplate jdbcTemplate;
 
 
-    public WalletServiceImpl(UserRepository userRepository, TransactionRepository transactionRepository, JdbcTemplate jdbcTemplate) {
+    public WalletServiceImpl(UserRepository userRepository, TransactionRepository transactionRepository) {
         this.userRepository = userRepository;
         this.transactionRepository = transactionRepository;
-        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -64,8 +62,11 @@ public class WalletServiceImpl implements WalletService {
     }
 
     @Override
-    public List<Transaction> listTransactions(UUID userId) {
-        return transactionRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    public CursorPageDto<Transaction> listTransactions(UUID userId, String cursor, Integer limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        int size = PageCursor.clampLimit(limit, PageCursor.DEFAULT_LIMIT);
+        List<Transaction> rows = transactionRepository.findPage(userId, after.getCreatedAtUtc(), after.getId(), size + 1);
+        return PageCursor.page(rows, size, t -> t.getCreatedAt().toInstant(), Transaction::getId, l -> l);
     }
     @Override
     public WalletDto getWalletByUserId(UUID userId) {
@@ -76,20 +77,8 @@ public class WalletServiceImpl implements WalletService {
 
         BigDecimal balance = u.getBalance() == null ? BigDecimal.ZERO : u.getBalance();
 
-        // Sum holds with status 'HELD' for this user from holds table (native)
-        BigDecimal held = BigDecimal.ZERO;
-        try {
-            Object res = jdbcTemplate.queryForObject(
-                    "SELECT COALESCE(SUM(amount),0) FROM holds WHERE user_id = ? AND status = ?",
-                    new Object[]{userId, "HELD"},
-                    BigDecimal.class
-            );
-            if (res != null) held = (BigDecimal) res;
-        } catch (Exception ex) {
-            // Log if you have logging, but swallow here and assume held=0
-            // e.g., log.warn("Failed to sum holds for user {}", userId, ex);
-            held = BigDecimal.ZERO;
-        }
+        // users.held_total is maintained on every hold create/increase/release/use (see UserRepository.reserveHeld)
+        BigDecimal held = u.getHeldTotal() == null ? BigDecimal.ZERO : u.getHeldTotal();
 
         BigDecimal available = balance.subtract(held == null ? BigDecimal.ZERO : held);
         if (available.compareTo(BigDecimal.ZERO) < 0) available = BigDecimal.ZERO;
@@ -0,0 +1,20 @@
+-- Commission credits are appended here at finalize time instead of rewriting the single platform_balance
+-- row (no row contention between parallel finalizations). PlatformCommissionRollup folds them into
+-- platform_balance periodically; v_system_revenue adds the not-yet-folded rows so it stays exact.
+
+CREATE TABLE IF NOT EXISTS platform_commission_deltas (
+    id bigserial PRIMARY KEY,
+    auction_id uuid,
+    amount numeric(18,2) NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE OR REPLACE VIEW v_system_revenue AS
+SELECT
+    (pb.balance + d.pending)::numeric(18,2) AS current_balance,
+    (pb.total_commission + d.pending)::numeric(18,2) AS total_commission,
+    COALESCE((SELECT SUM(commission_amount) FROM commission_logs), 0) AS total_logged_commission,
+    COALESCE((SELECT COUNT(*) FROM payouts), 0) AS total_payouts,
+    (SELECT MAX(created_at) FROM commission_logs) AS last_commission_time
+FROM platform_balance pb
+CROSS JOIN (SELECT COALESCE(SUM(amount), 0) AS pending FROM platform_commission_deltas) d;
@@ -0,0 +1,17 @@
+-- Auto-release deadline of an ESCROWED sale, set when the seller records a shipment (shipped_at + N days)
+-- or the buyer confirms delivery (now). The auto-release job only reads due rows through the partial index.
+
+ALTER TABLE sales
+    ADD COLUMN IF NOT EXISTS release_due_at timestamptz;
+
+CREATE INDEX IF NOT EXISTS idx_sales_escrowed_release_due
+    ON sales(release_due_at, id)
+    WHERE status = 'ESCROWED' AND release_due_at IS NOT NULL;
+
+-- backfill sales that were already shipped / confirmed (same policy as the old full scan: 14 days)
+UPDATE sales s
+SET release_due_at = CASE
+        WHEN EXISTS (SELECT 1 FROM delivery_confirmations dc WHERE dc.sale_id = s.id) THEN now()
+        ELSE (SELECT MIN(sh.shipped_at) FROM shipments sh WHERE sh.sale_id = s.id) + interval '14 days'
+    END
+WHERE s.status = 'ESCROWED' AND s.release_due_at IS NULL;
@@ -0,0 +1,11 @@
+-- Progress of keyset batch jobs (KeysetBatchRunner): last committed key of the running pass, so a restart
+-- resumes after it. last_key is cleared when a pass completes; the last_run_* columns keep its throughput.
+
+CREATE TABLE IF NOT EXISTS batch_job_checkpoints (
+    job_name varchar(100) PRIMARY KEY,
+    last_key text,
+    updated_at timestamptz NOT NULL DEFAULT now(),
+    last_run_items bigint,
+    last_run_ms bigint,
+    last_completed_at timestamptz
+);
@@ -0,0 +1,7 @@
+-- GET /api/auctions?q=: substring search (ILIKE '%q%') on title / description through trigram GIN indexes
+-- instead of a sequential scan. Queries: AuctionRepository.findByText / findByStatusAndText.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_auctions_title_trgm ON auctions USING gin (title gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_auctions_description_trgm ON auctions USING gin (description gin_trgm_ops);
@@ -0,0 +1,16 @@
+-- ============================
+-- Keyset (cursor) pagination: "(created_at, id) < (cursor) ORDER BY created_at DESC, id DESC LIMIT n"
+-- is a single backward range scan on these indexes, whatever the page depth (no OFFSET, no count(*)).
+-- ============================
+
+CREATE INDEX IF NOT EXISTS idx_auctions_created_id ON auctions (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_auctions_status_created_id ON auctions (status, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_bids_auction_created_id ON bids (auction_id, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_created_id ON transactions (user_id, created_at, id);
+
+-- conversation (both directions), outbox, inbox
+CREATE INDEX IF NOT EXISTS idx_messages_from_to_created_id ON messages (from_user, to_user, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_messages_from_created_id ON messages (from_user, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_messages_to_created_id ON messages (to_user, created_at, id);
@@ -0,0 +1,3 @@
+-- Idempotency keys are now reserved as the first statement of the bid transaction (BidIdempotencyCache.reserve),
+-- before the bid row exists; bid_id is filled in by the same transaction before it commits.
+ALTER TABLE bid_idempotency_keys ALTER COLUMN bid_id DROP NOT NULL;
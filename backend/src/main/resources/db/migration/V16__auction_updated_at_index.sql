@@ -0,0 +1,3 @@
+-- Delta reload of the in-memory search index (AuctionSearchEngine.reloadChanged):
+-- auctions with created_at or updated_at after the last sync. created_at is covered by idx_auctions_created_id.
+CREATE INDEX IF NOT EXISTS idx_auctions_updated_at ON auctions (updated_at);
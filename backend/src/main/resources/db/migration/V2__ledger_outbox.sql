@@ -0,0 +1,18 @@
+-- Outbox for hold bookkeeping: written in the bid transaction, expanded into
+-- escrow_entries + transactions by LedgerOutboxDrainer (JDBC batch), then deleted.
+
+CREATE TABLE IF NOT EXISTS ledger_outbox (
+                                             id uuid PRIMARY KEY DEFAULT uuid_generate_v4(),
+    user_id uuid NOT NULL REFERENCES users(id),
+    sale_id uuid REFERENCES sales(id),
+    reference_id uuid,
+    related_entity varchar(50),
+    escrow_type varchar(30) NOT NULL, -- HOLD | REFUND
+    tx_type varchar(30) NOT NULL,     -- HOLD | RELEASE
+    direction varchar(20),
+    amount numeric(18,2) NOT NULL CHECK (amount >= 0),
+    description text,
+    created_at timestamptz NOT NULL DEFAULT now()
+    );
+
+CREATE INDEX IF NOT EXISTS idx_ledger_outbox_created_at ON ledger_outbox(created_at);
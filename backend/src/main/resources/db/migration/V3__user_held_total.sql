@@ -0,0 +1,11 @@
+-- Materialized sum of HELD holds per user (maintained by conditional UPDATEs on the bid/finalize path,
+-- verified by HeldTotalReconciler). available = balance - held_total.
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS held_total numeric(18,2) NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET held_total = COALESCE((SELECT SUM(h.amount) FROM holds h WHERE h.user_id = u.id AND h.status = 'HELD'), 0);
+
+ALTER TABLE users
+    ADD CONSTRAINT chk_users_held_total_non_negative CHECK (held_total >= 0);
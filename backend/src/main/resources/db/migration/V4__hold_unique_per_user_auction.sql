@@ -0,0 +1,24 @@
+-- One active (HELD) hold per (user, auction): merge existing duplicates into the newest row,
+-- then enforce it so HoldRepository.upsertHeld can use INSERT ... ON CONFLICT.
+
+WITH ranked AS (
+    SELECT id,
+           row_number() OVER (PARTITION BY user_id, auction_id ORDER BY created_at DESC, id) AS rn,
+           SUM(amount) OVER (PARTITION BY user_id, auction_id) AS total
+    FROM holds
+    WHERE status = 'HELD'
+)
+UPDATE holds h
+SET amount = r.total, updated_at = now()
+FROM ranked r
+WHERE h.id = r.id AND r.rn = 1 AND h.amount <> r.total;
+
+DELETE FROM holds h
+USING (
+    SELECT id, row_number() OVER (PARTITION BY user_id, auction_id ORDER BY created_at DESC, id) AS rn
+    FROM holds
+    WHERE status = 'HELD'
+) r
+WHERE h.id = r.id AND r.rn > 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_hold_user_auction_held ON holds (user_id, auction_id) WHERE status = 'HELD';
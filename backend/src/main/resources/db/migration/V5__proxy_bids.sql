@@ -0,0 +1,15 @@
+-- Proxy (max) bids: one row per (auction, user). Only the current leader's row can be ACTIVE in practice;
+-- a proxy that has been beaten, or superseded by a higher manual bid of its owner, becomes INACTIVE.
+
+CREATE TABLE IF NOT EXISTS proxy_bids (
+                                          id uuid PRIMARY KEY DEFAULT uuid_generate_v4(),
+    auction_id uuid NOT NULL REFERENCES auctions(id),
+    user_id uuid NOT NULL REFERENCES users(id),
+    max_amount numeric(18,2) NOT NULL CHECK (max_amount >= 0),
+    status varchar(20) NOT NULL DEFAULT 'ACTIVE', -- ACTIVE | INACTIVE
+    created_at timestamptz NOT NULL DEFAULT now(),
+    updated_at timestamptz,
+    CONSTRAINT uq_proxy_bids_auction_user UNIQUE (auction_id, user_id)
+    );
+
+CREATE INDEX IF NOT EXISTS idx_proxy_bids_auction_status ON proxy_bids(auction_id, status);
@@ -0,0 +1,12 @@
+-- Idempotency-Key of POST /api/auctions/{id}/bids, scoped per user. Rows older than
+-- app.bid.idempotency.ttl-seconds are purged by BidIdempotencyCache.
+
+CREATE TABLE IF NOT EXISTS bid_idempotency_keys (
+                                                    user_id uuid NOT NULL,
+    idem_key varchar(100) NOT NULL,
+    bid_id uuid NOT NULL REFERENCES bids(id),
+    created_at timestamptz NOT NULL DEFAULT now(),
+    PRIMARY KEY (user_id, idem_key)
+    );
+
+CREATE INDEX IF NOT EXISTS idx_bid_idempotency_keys_created_at ON bid_idempotency_keys(created_at);
@@ -0,0 +1,4 @@
+-- Optimistic concurrency for auctions (Auction.version, used by app.bid.engine=optimistic).
+
+ALTER TABLE auctions
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,118 @@
+-- ============================
+-- FUNCTION: place_bid
+-- Whole manual-bid path in one round trip (app.bid.engine=db-function, StoredFunctionBidService).
+-- Mirrors BidServiceImpl.placeBid without proxies: lock auction, check rules, insert bid, upsert hold,
+-- reserve users.held_total, release previous leader, write ledger rows (outbox or direct), move price.
+--
+-- Errors: SQLSTATE 'P0B01' = rejected bid (bad amount), 'P0B09' = state conflict (closed, funds, not found).
+-- result = 'FALLBACK' (nothing written) when the auction has an active proxy bid: the Java path must resolve it.
+-- ============================
+
+-- Ledger rows for a hold/release, same shapes as HoldLedger (outbox row, or escrow_entries + transactions).
+CREATE OR REPLACE FUNCTION place_bid_ledger(p_use_outbox boolean, p_user_id uuid, p_hold_id uuid, p_sale_id uuid,
+                                            p_escrow_type text, p_tx_type text, p_direction text,
+                                            p_amount numeric, p_description text, p_at timestamptz)
+RETURNS void LANGUAGE plpgsql AS $$
+BEGIN
+  IF p_use_outbox THEN
+    INSERT INTO ledger_outbox (id, user_id, sale_id, reference_id, related_entity, escrow_type, tx_type, direction,
+                               amount, description, created_at)
+    VALUES (uuid_generate_v4(), p_user_id, p_sale_id, p_hold_id, 'HOLD', p_escrow_type, p_tx_type, p_direction,
+            p_amount, p_description, p_at);
+  ELSE
+    INSERT INTO escrow_entries (id, sale_id, user_id, amount, type, related_entity, reference_id, created_at)
+    VALUES (uuid_generate_v4(), p_sale_id, p_user_id, p_amount, p_escrow_type, 'HOLD', p_hold_id, p_at);
+    INSERT INTO transactions (id, user_id, type, amount, reference_id, related_entity, status, created_at, direction, description)
+    VALUES (uuid_generate_v4(), p_user_id, p_tx_type, p_amount, p_hold_id, 'HOLD', 'COMPLETED', p_at, p_direction, p_description);
+  END IF;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION place_bid(p_user_id uuid, p_auction_id uuid, p_amount numeric, p_use_outbox boolean)
+RETURNS TABLE (result text, bid_id uuid, bid_created_at timestamptz, hold_id uuid, new_price numeric)
+LANGUAGE plpgsql AS $$
+DECLARE
+  v_auction      auctions%ROWTYPE;
+  v_min          numeric;
+  v_now          timestamptz := now();
+  v_bid_id       uuid := uuid_generate_v4();
+  v_prev_hold    holds%ROWTYPE;
+  v_hold_id      uuid;
+  v_prev_amount  numeric;
+  v_additional   numeric;
+BEGIN
+  IF p_amount IS NULL OR p_amount <= 0 THEN
+    RAISE EXCEPTION 'amount must be > 0' USING ERRCODE = 'P0B01';
+  END IF;
+
+  SELECT * INTO v_auction FROM auctions WHERE id = p_auction_id FOR UPDATE;
+  IF NOT FOUND THEN
+    RAISE EXCEPTION 'auction not found' USING ERRCODE = 'P0B09';
+  END IF;
+
+  IF upper(coalesce(v_auction.status, '')) <> 'PUBLISHED' THEN
+    RAISE EXCEPTION 'auction not open for bidding' USING ERRCODE = 'P0B09';
+  END IF;
+  IF (v_auction.start_at IS NOT NULL AND v_auction.start_at > v_now)
+     OR (v_auction.end_at IS NOT NULL AND v_auction.end_at < v_now) THEN
+    RAISE EXCEPTION 'auction not active' USING ERRCODE = 'P0B09';
+  END IF;
+
+  IF EXISTS (SELECT 1 FROM proxy_bids WHERE auction_id = p_auction_id AND status = 'ACTIVE') THEN
+    RETURN QUERY SELECT 'FALLBACK'::text, NULL::uuid, NULL::timestamptz, NULL::uuid, v_auction.current_price;
+    RETURN;
+  END IF;
+
+  v_min := coalesce(v_auction.current_price, v_auction.starting_price, 0) + coalesce(v_auction.min_increment, 1);
+  IF p_amount < v_min THEN
+    RAISE EXCEPTION 'bid too low; minimum is %', v_min USING ERRCODE = 'P0B01';
+  END IF;
+
+  -- previous leader (another user), found before this user's hold changes
+  SELECT * INTO v_prev_hold FROM holds
+  WHERE auction_id = p_auction_id AND status = 'HELD' AND user_id <> p_user_id
+  ORDER BY amount DESC, created_at DESC
+  LIMIT 1;
+
+  INSERT INTO bids (id, auction_id, user_id, amount, created_at)
+  VALUES (v_bid_id, p_auction_id, p_user_id, p_amount, v_now);
+
+  -- same statement as HoldRepository.upsertHeld
+  WITH prev AS (
+    SELECT amount FROM holds WHERE user_id = p_user_id AND auction_id = p_auction_id AND status = 'HELD' FOR UPDATE)
+  INSERT INTO holds (id, user_id, auction_id, amount, status, created_at, updated_at)
+  VALUES (uuid_generate_v4(), p_user_id, p_auction_id, p_amount, 'HELD', v_now, v_now)
+  ON CONFLICT (user_id, auction_id) WHERE status = 'HELD'
+  DO UPDATE SET amount = GREATEST(holds.amount, EXCLUDED.amount), updated_at = EXCLUDED.updated_at
+  RETURNING holds.id, (SELECT amount FROM prev) INTO v_hold_id, v_prev_amount;
+
+  v_additional := GREATEST(p_amount - coalesce(v_prev_amount, 0), 0);
+  IF v_additional > 0 THEN
+    UPDATE users SET held_total = held_total + v_additional
+    WHERE id = p_user_id AND balance - held_total >= v_additional;
+    IF NOT FOUND THEN
+      IF NOT EXISTS (SELECT 1 FROM users WHERE id = p_user_id) THEN
+        RAISE EXCEPTION 'user not found' USING ERRCODE = 'P0B09';
+      END IF;
+      RAISE EXCEPTION 'insufficient funds' USING ERRCODE = 'P0B09';
+    END IF;
+    PERFORM place_bid_ledger(p_use_outbox, p_user_id, v_hold_id, NULL, 'HOLD', 'HOLD', 'OUT', v_additional,
+                             CASE WHEN v_prev_amount IS NULL THEN 'Hold for bid' ELSE 'Hold additional for increased bid' END,
+                             v_now);
+  END IF;
+
+  IF v_prev_hold.id IS NOT NULL THEN
+    UPDATE holds SET status = 'RELEASED', released_at = v_now WHERE id = v_prev_hold.id AND status = 'HELD';
+    IF FOUND THEN
+      UPDATE users SET held_total = GREATEST(held_total - v_prev_hold.amount, 0) WHERE id = v_prev_hold.user_id;
+      PERFORM place_bid_ledger(p_use_outbox, v_prev_hold.user_id, v_prev_hold.id, NULL, 'REFUND', 'RELEASE', 'IN',
+                               v_prev_hold.amount,
+                               'Hold released due to being outbid (no balance was charged at hold time)', v_now);
+    END IF;
+  END IF;
+
+  UPDATE auctions SET current_price = p_amount, version = version + 1 WHERE id = p_auction_id;
+
+  RETURN QUERY SELECT 'PLACED'::text, v_bid_id, v_now, v_hold_id, p_amount;
+END;
+$$;
@@ -0,0 +1,10 @@
+-- Auctions whose finalization failed on every retry of one sweep (AuctionFinalizationPool).
+-- The row is removed once a later sweep or an admin finalize succeeds.
+
+CREATE TABLE IF NOT EXISTS finalization_dead_letters (
+    auction_id uuid PRIMARY KEY REFERENCES auctions(id),
+    attempts integer NOT NULL,
+    last_error text,
+    first_failed_at timestamptz NOT NULL DEFAULT now(),
+    last_failed_at timestamptz NOT NULL DEFAULT now()
+);
@@ -0,0 +1,119 @@
+package com.huyin.inner_auction.controller;
+
+import com.huyin.inner_auction.entity.Auction;
+import com.huyin.inner_auction.entity.AuctionImage;
+import com.huyin.inner_auction.entity.User;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import com.huyin.inner_auction.repository.UserRepository;
+import com.huyin.inner_auction.service.impl.AuctionReadCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/auctions/{id} must cost the ETag lookup (auctions.version) plus one SQL statement on a cache miss
+ * (auction + images in one query), and only the ETag lookup on a hit or a 304; serialization must not
+ * lazy-load anything.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+public class AuctionDetailQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuctionRepository auctionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuctionReadCache auctionReadCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Auction auction;
+
+    @BeforeEach
+    void setUp() {
+        User seller = userRepository.save(User.builder()
+                .id(UUID.randomUUID())
+                .email("seller-" + UUID.randomUUID() + "@example.com")
+                .role("SELLER")
+                .balance(BigDecimal.ZERO)
+                .build());
+        auction = Auction.builder()
+                .id(UUID.randomUUID())
+                .sellerId(seller.getId())
+                .title("Query count")
+                .status("PUBLISHED")
+                .startingPrice(BigDecimal.valueOf(100_000))
+                .minIncrement(BigDecimal.valueOf(5000))
+                .startAt(Instant.now().minusSeconds(60))
+                .endAt(Instant.now().plusSeconds(3600))
+                .createdAt(Instant.now())
+                .build();
+        for (int i = 0; i < 3; i++) {
+            auction.getImages().add(AuctionImage.builder()
+                    .id(UUID.randomUUID())
+                    .auction(auction)
+                    .url("https://img.example.com/" + i + ".jpg")
+                    .orderIndex(i)
+                    .createdAt(Instant.now())
+                    .build());
+        }
+        auctionRepository.saveAndFlush(auction);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // the rows are rolled back, the cached view is not
+        auctionReadCache.invalidate(auction.getId());
+    }
+
+    @Test
+    void detailIsOneQueryThenServedFromMemory() throws Exception {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        MvcResult first = mockMvc.perform(get("/api/auctions/" + auction.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.images.length()").value(3))
+                .andExpect(jsonPath("$.imageUrl").value("https://img.example.com/0.jpg"))
+                .andReturn();
+        assertEquals(2, stats.getPrepareStatementCount(), "cache miss: version lookup + one joined query");
+        assertEquals(0, stats.getCollectionFetchCount(), "no lazy collection initialized");
+
+        stats.clear();
+        mockMvc.perform(get("/api/auctions/" + auction.getId())).andExpect(status().isOk());
+        assertEquals(1, stats.getPrepareStatementCount(), "cache hit: version lookup only");
+
+        String etag = first.getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        stats.clear();
+        mockMvc.perform(get("/api/auctions/" + auction.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        assertEquals(1, stats.getPrepareStatementCount(), "304: version lookup only");
+    }
+}
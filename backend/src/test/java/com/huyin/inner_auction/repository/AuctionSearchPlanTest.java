@@ -0,0 +1,52 @@
+package com.huyin.inner_auction.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query-plan regression test for the list/search queries of GET /api/auctions: the text filter must be able to
+ * use the pg_trgm indexes (V13). Sequential scans are disabled so the check does not depend on table size.
+ */
+@SpringBootTest
+@Transactional
+public class AuctionSearchPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @BeforeEach
+    void disableSeqScan() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void textSearchUsesTrigramIndexes() {
+        String plan = explain(AuctionRepository.SEARCH_BY_TEXT, Map.of("q", "%lamp%"));
+        assertTrue(plan.contains("idx_auctions_title_trgm"), plan);
+        assertTrue(plan.contains("idx_auctions_description_trgm"), plan);
+    }
+
+    @Test
+    void statusAndTextSearchUsesAnIndex() {
+        String plan = explain(AuctionRepository.SEARCH_BY_STATUS_AND_TEXT, Map.of("status", "PUBLISHED", "q", "%lamp%"));
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    private String explain(String sql, Map<String, ?> params) {
+        List<String> lines = namedJdbcTemplate.queryForList("EXPLAIN " + sql, params, String.class);
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,132 @@
+package com.huyin.inner_auction.service;
+
+import com.huyin.inner_auction.entity.Auction;
+import com.huyin.inner_auction.entity.User;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import com.huyin.inner_auction.repository.UserRepository;
+import com.huyin.inner_auction.service.impl.BidIdempotencyCache;
+import com.huyin.inner_auction.service.impl.BidServiceImpl;
+import com.huyin.inner_auction.service.impl.BidWriter;
+import com.huyin.inner_auction.service.impl.OptimisticBidService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the locking (SELECT ... FOR UPDATE) and optimistic (version) bid paths under contention on one auction.
+ * Needs the database; run with: mvn test -Dtest=BidEngineBenchmarkTest -Dbench=true
+ */
+@SpringBootTest
+@Slf4j
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+public class BidEngineBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int BIDS_PER_THREAD = 50;
+
+    @Autowired
+    private BidServiceImpl lockingBidService;
+
+    @Autowired
+    private BidWriter bidWriter;
+
+    @Autowired
+    private AuctionRepository auctionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BidIdempotencyCache idempotencyCache;
+
+    @Test
+    void compareLockingAndOptimistic() throws Exception {
+        OptimisticBidService optimistic = new OptimisticBidService(
+                auctionRepository, bidWriter, lockingBidService, transactionTemplate, idempotencyCache, 10);
+
+        String locking = run("locking", lockingBidService);
+        String optimisticResult = run("optimistic", optimistic);
+
+        log.info("Bid engine benchmark: {}", locking);
+        log.info("Bid engine benchmark: {}", optimisticResult);
+    }
+
+    private String run(String name, BidService service) throws Exception {
+        Auction auction = auctionRepository.save(Auction.builder()
+                .id(UUID.randomUUID())
+                .title("bench-" + name)
+                .status("PUBLISHED")
+                .startingPrice(BigDecimal.valueOf(1_000))
+                .minIncrement(BigDecimal.ONE)
+                .startAt(Instant.now().minusSeconds(60))
+                .endAt(Instant.now().plusSeconds(3600))
+                .build());
+
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            User u = User.builder()
+                    .id(UUID.randomUUID())
+                    .email("bench-" + UUID.randomUUID() + "@example.com")
+                    .role("BUYER")
+                    .balance(BigDecimal.valueOf(1_000_000_000))
+                    .build();
+            users.add(userRepository.save(u).getId());
+        }
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger tooLow = new AtomicInteger();
+        AtomicInteger busy = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (UUID userId : users) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < BIDS_PER_THREAD; i++) {
+                    BigDecimal current = auctionRepository.findById(auction.getId())
+                            .map(Auction::getCurrentPrice).orElse(null);
+                    BigDecimal amount = (current == null ? BigDecimal.valueOf(1_000) : current)
+                            .add(BigDecimal.valueOf(1 + ThreadLocalRandom.current().nextInt(3)));
+                    try {
+                        service.placeBid(userId, auction.getId(), amount);
+                        accepted.incrementAndGet();
+                    } catch (IllegalArgumentException ex) {
+                        tooLow.incrementAndGet();
+                    } catch (IllegalStateException ex) {
+                        busy.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) f.get(5, TimeUnit.MINUTES);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        pool.shutdown();
+
+        int total = THREADS * BIDS_PER_THREAD;
+        assertTrue(accepted.get() > 0, name + ": no bid accepted");
+        assertEquals(total, accepted.get() + tooLow.get() + busy.get(), name + ": unaccounted bid attempts");
+        return String.format("%s: %d attempts in %d ms (%.1f/s), accepted=%d tooLow=%d busy=%d",
+                name, total, elapsedMs, total * 1000.0 / Math.max(1, elapsedMs), accepted.get(), tooLow.get(), busy.get());
+    }
+}
@@ -0,0 +1,89 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.AuctionChangesDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuctionChangeLogTest {
+
+    private final AuctionChangeLog changeLog = new AuctionChangeLog(3, 5000);
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        changeLog.shutdown();
+    }
+
+    @Test
+    void oneLinePerAuctionWithLatestPriceAndStatus() {
+        changeLog.append(a, BigDecimal.valueOf(100), null);
+        changeLog.append(b, BigDecimal.valueOf(50), null);
+        changeLog.append(a, null, "FINISHED");
+
+        AuctionChangesDto dto = changeLog.changesSince(0);
+        assertFalse(dto.isReset());
+        assertEquals(changeLog.cursor(3), dto.getCursor());
+        assertEquals(2, dto.getChanges().size());
+        AuctionChangesDto.Change last = dto.getChanges().get(1);
+        assertEquals(a, last.getAuctionId());
+        assertEquals(3, last.getSeq());
+        assertEquals(0, last.getCurrentPrice().compareTo(BigDecimal.valueOf(100)));
+        assertEquals("FINISHED", last.getStatus());
+
+        assertTrue(changeLog.changesSince(3).getChanges().isEmpty());
+    }
+
+    @Test
+    void resetWhenSinceIsOutsideTheLog() {
+        for (int i = 1; i <= 5; i++) changeLog.append(a, BigDecimal.valueOf(i), null); // keeps seq 3..5
+
+        assertTrue(changeLog.changesSince(1).isReset());
+        assertFalse(changeLog.changesSince(2).isReset());
+        assertTrue(changeLog.changesSince(42).isReset()); // seq from before a restart
+    }
+
+    @Test
+    void cursorFromAnotherNodeResets() throws Exception {
+        changeLog.append(a, BigDecimal.ONE, null);
+        String own = changeLog.changesSince(0).getCursor();
+        assertEquals(1, changeLog.parseCursor(own));
+
+        AuctionChangeLog other = new AuctionChangeLog(3, 5000);
+        try {
+            other.append(b, BigDecimal.TEN, null);
+            other.append(b, BigDecimal.valueOf(11), null);
+            assertEquals(-1, other.parseCursor(own));
+            DeferredResult<AuctionChangesDto> result = other.poll(own, 5000);
+            assertTrue(result.hasResult());
+            AuctionChangesDto dto = (AuctionChangesDto) result.getResult();
+            assertTrue(dto.isReset());
+            assertTrue(dto.getChanges().isEmpty());
+            assertEquals(other.cursor(2), dto.getCursor());
+        } finally {
+            other.shutdown();
+        }
+        assertEquals(-1, changeLog.parseCursor("garbage"));
+    }
+
+    @Test
+    void parkedPollIsCompletedByTheNextChange() throws Exception {
+        DeferredResult<AuctionChangesDto> result = changeLog.poll("0", 5000);
+        assertFalse(result.hasResult());
+
+        changeLog.append(b, BigDecimal.TEN, null);
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertTrue(result.hasResult());
+        AuctionChangesDto dto = (AuctionChangesDto) result.getResult();
+        assertEquals(1, dto.getChanges().size());
+        assertEquals(b, dto.getChanges().get(0).getAuctionId());
+    }
+}
@@ -0,0 +1,82 @@
+package com.huyin.inner_auction.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuctionSearchIndexTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final AuctionSearchIndex index = new AuctionSearchIndex();
+
+    private UUID put(String title, String description, String status, long price, long endInSeconds) {
+        UUID id = UUID.randomUUID();
+        index.put(new AuctionSearchIndex.Doc(id, title, description, status,
+                BigDecimal.valueOf(price), NOW.plusSeconds(endInSeconds)));
+        return id;
+    }
+
+    @Test
+    void tokenizeFoldsVietnameseDiacritics() {
+        assertEquals(List.of("dong", "ho", "co", "thuy", "si"), AuctionSearchIndex.tokenize("Đồng hồ cổ — Thụy Sĩ"));
+    }
+
+    @Test
+    void prefixMatchesEveryQueryTerm() {
+        UUID watch = put("Đồng hồ Rolex", "máy cơ", "PUBLISHED", 100, 60);
+        put("Đồng xu cổ", null, "PUBLISHED", 100, 60);
+
+        List<AuctionSearchIndex.Match> hits = index.search("dong ho", null, NOW);
+        assertEquals(1, hits.size());
+        assertEquals(watch, hits.get(0).getDoc().getId());
+
+        assertEquals(2, index.search("đồ", null, NOW).size());
+        assertTrue(index.search("dong rolexx", null, NOW).isEmpty());
+    }
+
+    @Test
+    void titleBeatsDescriptionThenEndingSoonThenPrice() {
+        UUID inDescription = put("Tranh sơn dầu", "khung gỗ lim", "PUBLISHED", 10, 10);
+        UUID laterEnd = put("Gỗ lim nguyên khối", null, "PUBLISHED", 10, 600);
+        UUID soonerEnd = put("Gỗ lim bàn trà", null, "PUBLISHED", 50, 60);
+        UUID soonerCheaper = put("Gỗ lim ghế", null, "PUBLISHED", 20, 60);
+
+        List<UUID> order = index.search("go lim", null, NOW).stream().map(m -> m.getDoc().getId()).toList();
+        assertEquals(List.of(soonerCheaper, soonerEnd, laterEnd, inDescription), order);
+    }
+
+    @Test
+    void endedAuctionsRankAfterOpenOnes() {
+        UUID ended = put("Tem cổ", null, "FINISHED", 10, -60);
+        UUID open = put("Tem thư", null, "PUBLISHED", 10, 3600);
+
+        List<UUID> order = index.search("tem", null, NOW).stream().map(m -> m.getDoc().getId()).toList();
+        assertEquals(List.of(open, ended), order);
+    }
+
+    @Test
+    void updatesAreVisibleWithoutRetokenizing() {
+        UUID id = put("Bình gốm", null, "PUBLISHED", 100, 60);
+
+        index.update(id, "FINISHED", BigDecimal.valueOf(250));
+        assertTrue(index.search("binh", "PUBLISHED", NOW).isEmpty());
+        AuctionSearchIndex.Doc doc = index.search("binh", "FINISHED", NOW).get(0).getDoc();
+        assertEquals(0, doc.getCurrentPrice().compareTo(BigDecimal.valueOf(250)));
+    }
+
+    @Test
+    void reindexDropsStaleTokens() {
+        UUID id = put("Bình gốm", null, "PUBLISHED", 100, 60);
+        index.put(new AuctionSearchIndex.Doc(id, "Lọ hoa", null, "PUBLISHED", BigDecimal.TEN, NOW));
+
+        assertTrue(index.search("binh", null, NOW).isEmpty());
+        assertEquals(1, index.search("lo hoa", null, NOW).size());
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,28 @@
+package com.huyin.inner_auction.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuctionVersionsTest {
+
+    @Test
+    void tagChangesWithVersionAndVariant() {
+        String before = AuctionVersions.etag(3, "a");
+        assertEquals(before, AuctionVersions.etag(3, "a"));
+        assertNotEquals(before, AuctionVersions.etag(3, "b"));
+        assertNotEquals(before, AuctionVersions.etag(4, "a"));
+        assertTrue(before.startsWith("\"") && before.endsWith("\""));
+    }
+
+    @Test
+    void ifNoneMatchAcceptsListsWeakTagsAndStar() {
+        String etag = AuctionVersions.etag(7, "a");
+        assertTrue(AuctionVersions.matches(etag, etag));
+        assertTrue(AuctionVersions.matches("\"x\", W/" + etag, etag));
+        assertTrue(AuctionVersions.matches("*", etag));
+        assertFalse(AuctionVersions.matches("\"x\"", etag));
+        assertFalse(AuctionVersions.matches(AuctionVersions.etag(6, "a"), etag));
+        assertFalse(AuctionVersions.matches(null, etag));
+    }
+}
@@ -0,0 +1,82 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.entity.Bid;
+import com.huyin.inner_auction.event.BidPlacedEvent;
+import com.huyin.inner_auction.repository.AuctionRepository;
+import com.huyin.inner_auction.repository.BidRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BidHistoryBufferTest {
+
+    private static final int BUFFER_SIZE = PageCursor.DEFAULT_LIMIT; // app.bid.history.buffer-size default
+
+    private final UUID auctionId = UUID.randomUUID();
+    private final BidRepository bidRepository = mock(BidRepository.class);
+    private final AuctionRepository auctionRepository = mock(AuctionRepository.class);
+
+    @Test
+    void defaultCursorFirstPageIsServedFromTheBuffer() {
+        List<Bid> stored = new ArrayList<>();
+        OffsetDateTime t0 = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < 80; i++) {
+            stored.add(Bid.builder().id(UUID.randomUUID()).auctionId(auctionId)
+                    .amount(BigDecimal.valueOf(1000 - i)).createdAt(t0.minusSeconds(i)).build());
+        }
+        when(bidRepository.findByAuctionIdOrderByCreatedAtDesc(eq(auctionId), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    Pageable p = inv.getArgument(1);
+                    return new PageImpl<>(stored.subList(0, p.getPageSize()), p, stored.size());
+                });
+        when(auctionRepository.findVersionById(auctionId)).thenReturn(Optional.of(7L));
+        BidHistoryBuffer buffer = new BidHistoryBuffer(bidRepository, auctionRepository, BUFFER_SIZE, 60_000);
+        buffer.onBidPlaced(new BidPlacedEvent(auctionId, List.of(), BigDecimal.valueOf(1000), null)); // loads the ring
+
+        // listBidsByCursor asks for limit + 1 rows to detect a next page
+        Optional<Page<Bid>> page = buffer.firstPage(auctionId, PageRequest.of(0, PageCursor.DEFAULT_LIMIT + 1), 7L);
+        assertTrue(page.isPresent());
+        assertEquals(PageCursor.DEFAULT_LIMIT + 1, page.get().getContent().size());
+        assertEquals(stored.get(0).getId(), page.get().getContent().get(0).getId());
+        assertEquals(80, page.get().getTotalElements());
+        verify(bidRepository, times(1)).findByAuctionIdOrderByCreatedAtDesc(eq(auctionId), any(Pageable.class));
+
+        assertTrue(buffer.firstPage(auctionId, PageRequest.of(0, PageCursor.DEFAULT_LIMIT + 2), 7L).isEmpty());
+        assertTrue(buffer.firstPage(auctionId, PageRequest.of(1, 10), 7L).isEmpty());
+    }
+
+    @Test
+    void ringOlderThanTheRequestedVersionIsReloaded() {
+        Bid first = Bid.builder().id(UUID.randomUUID()).auctionId(auctionId)
+                .amount(BigDecimal.TEN).createdAt(OffsetDateTime.now(ZoneOffset.UTC)).build();
+        Bid remote = Bid.builder().id(UUID.randomUUID()).auctionId(auctionId)
+                .amount(BigDecimal.valueOf(20)).createdAt(first.getCreatedAt().plusSeconds(1)).build();
+        when(auctionRepository.findVersionById(auctionId)).thenReturn(Optional.of(1L), Optional.of(2L));
+        when(bidRepository.findByAuctionIdOrderByCreatedAtDesc(eq(auctionId), any(Pageable.class)))
+                .thenAnswer(inv -> new PageImpl<>(List.of(first), inv.getArgument(1), 1))
+                .thenAnswer(inv -> new PageImpl<>(List.of(remote, first), inv.getArgument(1), 2));
+        BidHistoryBuffer buffer = new BidHistoryBuffer(bidRepository, auctionRepository, BUFFER_SIZE, 60_000);
+        buffer.onBidPlaced(new BidPlacedEvent(auctionId, List.of(), BigDecimal.TEN, null));
+
+        assertEquals(1, buffer.firstPage(auctionId, PageRequest.of(0, 10), 1L).orElseThrow().getTotalElements());
+        // a bid committed on another node moved auctions.version to 2: the ring must not answer for it
+        Page<Bid> page = buffer.firstPage(auctionId, PageRequest.of(0, 10), 2L).orElseThrow();
+        assertEquals(2, page.getTotalElements());
+        assertEquals(remote.getId(), page.getContent().get(0).getId());
+    }
+}
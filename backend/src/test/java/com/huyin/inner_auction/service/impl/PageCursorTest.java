@@ -0,0 +1,55 @@
+package com.huyin.inner_auction.service.impl;
+
+import com.huyin.inner_auction.dto.CursorPageDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+
+    @Test
+    void roundTripKeepsMicrosecondPrecision() {
+        UUID id = UUID.randomUUID();
+        Instant at = Instant.parse("2025-03-04T05:06:07.123456789Z");
+
+        PageCursor decoded = PageCursor.decode(PageCursor.of(at, id).encode());
+
+        assertEquals(Instant.parse("2025-03-04T05:06:07.123456Z"), decoded.getCreatedAt());
+        assertEquals(id, decoded.getId());
+    }
+
+    @Test
+    void blankMeansFirstPageAndGarbageIsRejected() {
+        assertSame(PageCursor.START, PageCursor.decode(null));
+        assertSame(PageCursor.START, PageCursor.decode(" "));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    void extraRowProducesCursorOfLastReturnedRow() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        List<Instant> rows = List.of(t.plusSeconds(3), t.plusSeconds(2), t.plusSeconds(1));
+        UUID id = UUID.randomUUID();
+
+        CursorPageDto<Instant> page = PageCursor.page(rows, 2, Function.identity(), r -> id, l -> l);
+        assertEquals(2, page.getItems().size());
+        assertEquals(t.plusSeconds(2), PageCursor.decode(page.getNextCursor()).getCreatedAt());
+
+        CursorPageDto<Instant> last = PageCursor.page(rows, 3, Function.identity(), r -> id, l -> l);
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void idsCompareUnsignedLikePostgres() {
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID high = UUID.fromString("ffffffff-0000-0000-0000-000000000000");
+        assertTrue(low.compareTo(high) > 0); // java: signed
+        assertTrue(PageCursor.compareIds(low, high) < 0);
+        assertTrue(PageCursor.compareIds(PageCursor.START.getId(), high) > 0);
+    }
+}
@@ -0,0 +1,96 @@
+package com.huyin.inner_auction.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProxyBidResolverTest {
+
+    private static final BigDecimal START = BigDecimal.valueOf(100);
+    private static final BigDecimal INC = BigDecimal.valueOf(5);
+
+    private final UUID userA = UUID.randomUUID();
+    private final UUID userB = UUID.randomUUID();
+
+    @Test
+    void firstProxyOpensAtMinimumWithHoldForMax() {
+        ProxyBidResolver.Outcome o = ProxyBidResolver.resolve(null, START, INC, null, null,
+                userA, BigDecimal.valueOf(300), true);
+
+        assertEquals(0, o.getPrice().compareTo(BigDecimal.valueOf(105)));
+        assertEquals(userA, o.getLeaderUserId());
+        assertEquals(0, o.getLeaderHoldAmount().compareTo(BigDecimal.valueOf(300)));
+        assertEquals(1, o.getSteps().size());
+        assertTrue(o.isLeaderChanged());
+    }
+
+    @Test
+    void competingProxiesJumpToClearingPriceInOneStep() {
+        // A leads at 105 with max 300; B registers max 500
+        ProxyBidResolver.Outcome o = ProxyBidResolver.resolve(BigDecimal.valueOf(105), START, INC,
+                userA, BigDecimal.valueOf(300), userB, BigDecimal.valueOf(500), true);
+
+        assertEquals(userB, o.getLeaderUserId());
+        assertEquals(0, o.getPrice().compareTo(BigDecimal.valueOf(305)));
+        assertEquals(2, o.getSteps().size());
+        assertEquals(userA, o.getSteps().get(0).getUserId());
+        assertEquals(0, o.getSteps().get(0).getAmount().compareTo(BigDecimal.valueOf(300)));
+        assertEquals(0, o.getLeaderMax().compareTo(BigDecimal.valueOf(500)));
+    }
+
+    @Test
+    void leaderProxyDefendsManualBid() {
+        ProxyBidResolver.Outcome o = ProxyBidResolver.resolve(BigDecimal.valueOf(105), START, INC,
+                userA, BigDecimal.valueOf(300), userB, BigDecimal.valueOf(200), false);
+
+        assertEquals(userA, o.getLeaderUserId());
+        assertFalse(o.isLeaderChanged());
+        assertFalse(o.isBidderLeading());
+        assertEquals(0, o.getPrice().compareTo(BigDecimal.valueOf(205)));
+        // challenger's bid is recorded first, the automatic raise after it
+        assertEquals(userB, o.getSteps().get(0).getUserId());
+        assertEquals(userA, o.getSteps().get(1).getUserId());
+    }
+
+    @Test
+    void equalMaximumGoesToEarlierProxy() {
+        ProxyBidResolver.Outcome o = ProxyBidResolver.resolve(BigDecimal.valueOf(105), START, INC,
+                userA, BigDecimal.valueOf(300), userB, BigDecimal.valueOf(300), true);
+
+        assertEquals(userA, o.getLeaderUserId());
+        assertEquals(0, o.getPrice().compareTo(BigDecimal.valueOf(300)));
+    }
+
+    @Test
+    void manualBidWithoutProxiesBehavesAsBefore() {
+        ProxyBidResolver.Outcome o = ProxyBidResolver.resolve(BigDecimal.valueOf(105), START, INC,
+                userA, null, userB, BigDecimal.valueOf(110), false);
+
+        assertEquals(userB, o.getLeaderUserId());
+        assertEquals(0, o.getPrice().compareTo(BigDecimal.valueOf(110)));
+        assertEquals(1, o.getSteps().size());
+        assertNull(o.getLeaderMax());
+    }
+
+    @Test
+    void leaderRaisingOwnMaxDoesNotMovePrice() {
+        ProxyBidResolver.Outcome o = ProxyBidResolver.resolve(BigDecimal.valueOf(105), START, INC,
+                userA, BigDecimal.valueOf(300), userA, BigDecimal.valueOf(400), true);
+
+        assertEquals(0, o.getPrice().compareTo(BigDecimal.valueOf(105)));
+        assertTrue(o.getSteps().isEmpty());
+        assertEquals(0, o.getLeaderHoldAmount().compareTo(BigDecimal.valueOf(400)));
+
+        assertThrows(IllegalArgumentException.class, () -> ProxyBidResolver.resolve(BigDecimal.valueOf(105), START, INC,
+                userA, BigDecimal.valueOf(300), userA, BigDecimal.valueOf(250), true));
+    }
+
+    @Test
+    void bidBelowMinimumIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProxyBidResolver.resolve(BigDecimal.valueOf(105), START, INC,
+                userA, null, userB, BigDecimal.valueOf(107), true));
+    }
+}